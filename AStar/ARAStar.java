@@ -0,0 +1,256 @@
+package AStar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import Heuristics.Heuristic;
+
+/**
+ * This class performs anytime repairing A* (ARA*) search on a given rush hour
+ * puzzle with a given heuristic. It runs a series of weighted A* searches (see
+ * <tt>AStar</tt>) with decreasing weights, so that a first solution is found
+ * quickly and then improved step by step. Each search reuses the work of the
+ * previous ones: nodes keep their depth and heuristic value, and only those
+ * nodes whose depth was lowered after they had been expanded are expanded
+ * again. Each search stops as soon as no node on the open list can lead to a
+ * shorter solution under the current weight, which guarantees that the
+ * solution is at most <tt>weight</tt> times longer than an optimal one.
+ * <p>
+ * Like <tt>AStar</tt>, the search is carried out by the constructor. Every
+ * time a shorter solution is found, it is passed to the given callback; the
+ * best solution is stored in <tt>path</tt> at the end. With a final weight of
+ * 1 and no budget exhausted, that solution is optimal.
+ */
+public class ARAStar {
+
+	/** The default weights, ending with plain A* */
+	public static final double[] DEFAULT_WEIGHTS = { 3.0, 2.0, 1.5, 1.25, 1.0 };
+
+	/** The best solution path is stored here */
+	public State[] path;
+
+	private Heuristic heuristic;
+	private SearchBudget budget;
+	private Consumer<State[]> callback;
+
+	private Map<State, Record> records = new HashMap<State, Record>();
+	private OpenList open = new BucketOpenList();
+	private List<Record> inconsistent = new ArrayList<Record>();
+	private MoveBuffer moves = new MoveBuffer();
+
+	private HNode goal;				// The best goal node found so far
+	private int iteration = 0;
+	private double weight;			// The weight of the current search
+	private double bound = Double.POSITIVE_INFINITY;
+	private SearchStatus status;
+	private int searchCount = 1;	// Nodes generated, including the root
+	private long expanded = 0;		// Nodes expanded by all searches
+
+	/**
+	 * Performs ARA* search with the default weights, passing every improved
+	 * solution to <tt>callback</tt>.
+	 */
+	public ARAStar(Puzzle puzzle, Heuristic heuristic, Consumer<State[]> callback) {
+		this(puzzle, heuristic, DEFAULT_WEIGHTS, new SearchBudget(), callback);
+	}
+
+	/**
+	 * Performs ARA* search with the given weights, which must be decreasing
+	 * and at least 1, within the given budget. When the budget is exhausted,
+	 * the best solution found so far is kept.
+	 */
+	public ARAStar(Puzzle puzzle, Heuristic heuristic, double[] weights, SearchBudget budget,
+			Consumer<State[]> callback) {
+		if (weights.length == 0)
+			throw new IllegalArgumentException("At least one weight is required");
+		for (int i = 0; i < weights.length; i++)
+			if (!(weights[i] >= 1.0) || (i > 0 && weights[i] > weights[i - 1]))
+				throw new IllegalArgumentException("Weights must be decreasing and at least 1");
+
+		this.heuristic = heuristic;
+		this.budget = budget;
+		this.callback = callback;
+
+		long startTime = System.nanoTime();
+		State root = puzzle.getInitNode().getState();
+		Record record = new Record(heuristic.getValue(root));
+		records.put(root, record);
+
+		weight = weights[0];
+		record.node = new HNode(root, 0, null, record.h, weight);
+		open.add(record.node);
+
+		for (int i = 0; i < weights.length; i++) {
+			if (i > 0) {
+				weight = weights[i];
+				reorder();
+			}
+
+			iteration++;
+			status = improvePath(startTime);
+
+			if (status != null)
+				return;
+
+			// The search under this weight is complete.
+			bound = weight;
+		}
+
+		status = goal != null ? SearchStatus.SOLVED : SearchStatus.UNSOLVABLE;
+	}
+
+	/**
+	 * Returns the number of nodes generated by all searches, including the
+	 * initial node.
+	 */
+	public int getSearchCount() {
+		return searchCount;
+	}
+
+	/** Returns the number of weighted searches run (or started). */
+	public int getIterations() {
+		return iteration;
+	}
+
+	/**
+	 * Returns the factor by which <tt>path</tt> is at most longer than an
+	 * optimal solution: the weight of the last search that ran to completion,
+	 * or infinity if none did.
+	 */
+	public double getBound() {
+		return bound;
+	}
+
+	/**
+	 * Returns the outcome of the search: <tt>SOLVED</tt> or
+	 * <tt>UNSOLVABLE</tt> if all searches ran to completion, or the reason why
+	 * it stopped early, in which case <tt>path</tt> may still hold a
+	 * solution.
+	 */
+	public SearchStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Runs weighted A* under the current weight until no open node can lead
+	 * to a shorter solution than the best one found. Returns <tt>null</tt>
+	 * when done, or the status to stop with if the budget is exhausted.
+	 */
+	private SearchStatus improvePath(long startTime) {
+		HNode best = goal;
+
+		while (!open.isEmpty()) {
+			HNode current = open.poll();
+
+			if (goal != null && current.getF() >= goal.getDepth()) {
+				open.add(current);
+				break;
+			}
+
+			SearchStatus exhausted = budget.check(expanded, records.size(), startTime, System.nanoTime());
+			if (exhausted != null) {
+				open.add(current);
+				report(best);
+				return exhausted;
+			}
+
+			State state = current.getState();
+			records.get(state).closedIn = iteration;
+
+			if (state.isGoal()) {
+				if (goal == null || current.getDepth() < goal.getDepth())
+					goal = current;
+				continue;
+			}
+
+			int count = state.expand(moves);
+			searchCount += count;
+			expanded++;
+
+			for (int i = 0; i < count; i++) {
+				State successor = state.move(moves.getCar(i), moves.getPosition(i));
+				int depth = current.getDepth() + 1;
+				Record record = records.get(successor);
+
+				if (record == null) {
+					record = new Record(heuristic.getValue(successor));
+					records.put(successor, record);
+				} else if (depth >= record.node.getDepth()) {
+					continue;
+				}
+
+				HNode node = new HNode(successor, depth, current, record.h, weight);
+
+				if (record.closedIn == iteration) {
+					// Expanded in this search already; its successors are
+					// updated in the next one.
+					record.node = node;
+					if (!record.inconsistent) {
+						record.inconsistent = true;
+						inconsistent.add(record);
+					}
+				} else if (record.node != null && open.contains(successor)) {
+					open.replace(record.node, node);
+					record.node = node;
+				} else {
+					record.node = node;
+					open.add(node);
+				}
+			}
+		}
+
+		report(best);
+		return null;
+	}
+
+	/** Passes the goal path to the callback if it is shorter than <tt>best</tt>. */
+	private void report(HNode best) {
+		if (goal == null || goal == best)
+			return;
+
+		path = new State[goal.getDepth() + 1];
+		for (Node node = goal; node != null; node = node.getParent())
+			path[node.getDepth()] = node.getState();
+
+		if (callback != null)
+			callback.accept(path.clone());
+	}
+
+	/**
+	 * Moves the inconsistent nodes onto the open list and orders all open
+	 * nodes by the new weight.
+	 */
+	private void reorder() {
+		List<HNode> nodes = new ArrayList<HNode>(open.size() + inconsistent.size());
+
+		while (!open.isEmpty())
+			nodes.add(open.poll());
+		for (Record record : inconsistent) {
+			record.inconsistent = false;
+			nodes.add(record.node);
+		}
+		inconsistent.clear();
+
+		for (HNode node : nodes) {
+			Record record = records.get(node.getState());
+			record.node = new HNode(node.getState(), node.getDepth(), node.getParent(), record.h, weight);
+			open.add(record.node);
+		}
+	}
+
+	/** What is known about a generated state. */
+	private static class Record {
+		final int h;
+		HNode node;				// The shallowest node of the state
+		int closedIn;			// The search in which it was last expanded
+		boolean inconsistent;	// Improved after it was expanded in this search
+
+		Record(int h) {
+			this.h = h;
+		}
+	}
+
+}
@@ -1,7 +1,7 @@
 package AStar;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 import Heuristics.Heuristic;
 
@@ -14,33 +14,123 @@ import Heuristics.Heuristic;
  * <tt>path[0]</tt> is the initial state). If no solution is found, the
  * <tt>path</tt> field should be set to <tt>null</tt>. You may also wish to
  * return other information by adding additional fields to the class.
+ * <p>
+ * A search may be bounded by a <tt>SearchBudget</tt>; <tt>getStatus()</tt>
+ * then tells whether the puzzle was solved, proven unsolvable, or the search
+ * stopped early.
+ * <p>
+ * Given a weight <tt>w</tt> greater than 1, the search runs as weighted A*,
+ * ordering nodes by <tt>depth + w * h</tt>. This usually finds a solution
+ * after far fewer expansions, whose length is at most <tt>w</tt> times the
+ * optimum (for an admissible heuristic). See <tt>ARAStar</tt> for refining
+ * such a solution.
+ * <p>
+ * Plain A* under the default <tt>FIFO</tt> tie-breaking never reopens closed
+ * states. Under the other policies, and for any weight greater than 1, a
+ * closed state reached again on a shorter path is reopened: with an
+ * inconsistent heuristic, the other policies may close a state before its
+ * shortest path is known (see <tt>TieBreaking</tt>), and weighting the
+ * heuristic makes even a consistent one inconsistent, so the bound on the
+ * solution length relies on reopening.
  */
 public class AStar {
 
     /** The solution path is stored here */
     public State[] path;
     
-    private SortableList<HNode> open = new SortableList<HNode>();
-    private List<HNode> closed = new ArrayList<HNode>();
+    private SearchStatistics statistics = new SearchStatistics();
+    private SearchStatus status;
+    private SearchBudget budget;
+    private double weight;
+    
+    private OpenList open;
+    private StateSet closed;
+    private Map<State, Integer> closedDepths;	// Instead of closed, if states are reopened
+    private MoveBuffer moves = new MoveBuffer();
+    private State[] successors = new State[32];
+    private int[] values = new int[32];
 
     /**
      * This is the constructor that performs A* search to compute a
      * solution for the given puzzle using the given heuristic.
      */
     public AStar(Puzzle puzzle, Heuristic heuristic) {
+    	this(puzzle, heuristic, new BucketOpenList());
+    }
+
+    /**
+     * Performs A* search like the constructor above, but keeps the open
+     * nodes in the given (empty) open list implementation.
+     */
+    public AStar(Puzzle puzzle, Heuristic heuristic, OpenList open) {
+    	this(puzzle, heuristic, open, new SearchBudget());
+    }
+
+    /**
+     * Performs A* search like the first constructor, but stops as soon as
+     * the given budget is exhausted or cancelled.
+     */
+    public AStar(Puzzle puzzle, Heuristic heuristic, SearchBudget budget) {
+    	this(puzzle, heuristic, new BucketOpenList(), budget);
+    }
+
+    /**
+     * Performs A* search within the given budget, keeping the open nodes in
+     * the given (empty) open list implementation.
+     */
+    public AStar(Puzzle puzzle, Heuristic heuristic, OpenList open, SearchBudget budget) {
+    	this(puzzle, heuristic, 1.0, open, budget);
+    }
+
+    /**
+     * Performs weighted A* search with the given weight (at least 1), which
+     * finds a solution at most <tt>weight</tt> times longer than an optimal
+     * one, given an admissible heuristic.
+     */
+    public AStar(Puzzle puzzle, Heuristic heuristic, double weight) {
+    	this(puzzle, heuristic, weight, new BucketOpenList(), new SearchBudget());
+    }
+
+    /**
+     * Performs weighted A* search within the given budget, keeping the open
+     * nodes in the given (empty) open list implementation.
+     */
+    public AStar(Puzzle puzzle, Heuristic heuristic, double weight, OpenList open, SearchBudget budget) {
+    	if (!(weight >= 1.0)) {
+    		throw new IllegalArgumentException("Weight must be at least 1");
+    	}
+    	
+    	this.open = open;
+    	if (open.getTieBreaking() == TieBreaking.FIFO && weight == 1.0) {
+    		this.closed = new StateSet(puzzle);
+    	} else {
+    		this.closedDepths = new HashMap<State, Integer>();
+    	}
+    	this.budget = budget;
+    	this.weight = weight;
+    	
+    	long startTime = System.nanoTime();
     	
     	// Initialize root node w/ heuristics and path costs
-    	int h = heuristic.getValue(puzzle.getInitNode().getState());
-    	HNode root = new HNode(puzzle.getInitNode(), h);
+    	int h = evaluate(heuristic, puzzle.getInitNode().getState());
+    	HNode root = new HNode(puzzle.getInitNode().getState(), 0, null, h, weight);
     	
     	open.add(root);	// Add the root node to the open list
+    	statistics.generated = 1;
+    	statistics.peakOpen = 1;
     	
+    	try {
+    		status = search(heuristic, startTime);
+    	} finally {
+    		statistics.peakClosed = Math.max(statistics.peakClosed, closedSize());
+    		statistics.wallTime = System.nanoTime() - startTime;
+    	}
+    }
+    
+    private SearchStatus search(Heuristic heuristic, long startTime) {
     	while(!open.isEmpty()) {
     		
-    		// Only performs sort if list was changed
-    		open.sort();
-    		
-    		HNode current = open.remove(0);
+    		HNode current = open.poll();
     		
     		if (current.getState().isGoal()) {
     			
@@ -59,35 +149,148 @@ public class AStar {
     			}
     			
     			// We found a solution, stop.
-    			return;
+    			return SearchStatus.SOLVED;
     		}
     		
-    		closed.add(current);
+    		long expansionStart = System.nanoTime();
+    		
+    		SearchStatus exhausted = budget.check(statistics.expanded, open.size() + closedSize(), startTime,
+    				expansionStart);
+    		if (exhausted != null) {
+    			return exhausted;
+    		}
     		
-    		for (Node successor : current.expand()) {
+    		State state = current.getState();
+    		if (closedDepths != null) {
+    			closedDepths.put(state, current.getDepth());
+    			if (closedDepths.size() > statistics.peakClosed) {
+    				statistics.peakClosed = closedDepths.size();
+    			}
+    		} else {
+    			closed.add(state);
+    		}
+    		
+    		int count = state.expand(moves);
+    		statistics.expanded++;
+    		statistics.generated += count;
+    		
+    		// Successors are built first and evaluated as a batch, so that
+    		// the heuristic time is measured once per expansion.
+    		int fresh = 0;
+    		successors = ensureCapacity(successors, count);
+    		for (int i = 0; i < count; i++) {
+    			int car = moves.getCar(i);
+    			int position = moves.getPosition(i);
+
+    			if (closedDepths != null) {
+    				State successor = state.move(car, position);
+    				Integer closedDepth = closedDepths.get(successor);
+    				
+    				if (closedDepth != null) {
+    					if (closedDepth <= current.getDepth() + 1) {
+    						statistics.duplicates++;
+    						continue;
+    					}
+    					
+    					// Reached on a shorter path than it was expanded on
+    					closedDepths.remove(successor);
+    					statistics.reopenings++;
+    				}
+    				
+    				successors[fresh++] = successor;
+    				continue;
+    			}
+
+    			// A state is never on both lists, so closed states can be
+    			// dropped before the successor is even constructed.
+    			if (closed.containsMove(state, car, position)) {
+    				statistics.duplicates++;
+    				continue;
+    			}
 
-    			h = heuristic.getValue(successor.getState());
-    			HNode hSuccessor = new HNode(successor, h);
+    			successors[fresh++] = state.move(car, position);
+    		}
+    		
+    		long heuristicStart = System.nanoTime();
+    		if (values.length < fresh) {
+    			values = new int[successors.length];
+    		}
+    		for (int i = 0; i < fresh; i++) {
+    			values[i] = heuristic.getValue(successors[i]);
+    		}
+    		long heuristicEnd = System.nanoTime();
+    		statistics.evaluations += fresh;
+    		statistics.heuristicTime += heuristicEnd - heuristicStart;
+    		
+    		for (int i = 0; i < fresh; i++) {
+    			HNode hSuccessor = new HNode(successors[i], current.getDepth() + 1, current, values[i], weight);
+    			successors[i] = null;
     			
-    			if (open.contains(hSuccessor)) {
+    			if (open.contains(hSuccessor.getState())) {
     				keepBetterNodeOnOpenList(hSuccessor);
-    			} else if (!closed.contains(hSuccessor)) {
+    			} else {
     				open.add(hSuccessor);
     			}
     		}
+    		
+    		if (open.size() > statistics.peakOpen) {
+    			statistics.peakOpen = open.size();
+    		}
+    		statistics.expansionTime += System.nanoTime() - expansionStart - (heuristicEnd - heuristicStart);
 
     	}
+    	
+    	return SearchStatus.UNSOLVABLE;
 
     }
     
+    private static State[] ensureCapacity(State[] array, int length) {
+    	return array.length < length ? new State[Math.max(length, 2 * array.length)] : array;
+    }
+    
+    private int closedSize() {
+    	return closedDepths != null ? closedDepths.size() : closed.size();
+    }
+    
+    private int evaluate(Heuristic heuristic, State state) {
+    	long start = System.nanoTime();
+    	int h = heuristic.getValue(state);
+    	statistics.heuristicTime += System.nanoTime() - start;
+    	statistics.evaluations++;
+    	return h;
+    }
+    
+    /**
+     * Returns the number of nodes generated by this search, including the
+     * initial node. This is the count formerly kept by the puzzle.
+     */
+    public int getSearchCount() {
+    	return (int) statistics.getNodesGenerated();
+    }
+    
+    /**
+     * Returns the outcome of this search. <tt>path</tt> is set if and only
+     * if it is <tt>SearchStatus.SOLVED</tt>.
+     */
+    public SearchStatus getStatus() {
+    	return status;
+    }
+    
+    /** Returns the statistics of this search. */
+    public SearchStatistics getStatistics() {
+    	return statistics;
+    }
+    
     // Idea from: http://web.mit.edu/eranki/www/tutorials/search/
     private void keepBetterNodeOnOpenList(HNode successor) {
-    	HNode existing = open.get(successor);
+    	HNode existing = open.get(successor.getState());
     	
     	if (existing != null) {
     		if (existing.compareTo(successor) > 0) {
-    			open.remove(existing);
-    			open.add(successor);
+    			open.replace(existing, successor);
+    			statistics.reopenings++;
+    		} else {
+    			statistics.duplicates++;
     		}
     	}
     }
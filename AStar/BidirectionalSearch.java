@@ -0,0 +1,193 @@
+package AStar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class performs a bidirectional breadth-first search on a given rush hour
+ * puzzle. Like <tt>AStar</tt>, the search is carried out by the constructor and
+ * the solution is stored in <tt>path</tt> (or <tt>null</tt> if there is none).
+ * <p>
+ * Every move can be undone by sliding the car back, so the graph of states is
+ * undirected and <tt>State.expand</tt> serves both directions. One frontier
+ * starts at the initial state, the other at all goal states of the puzzle (see
+ * <tt>Puzzle.getGoalStates</tt>). In every step the smaller frontier is
+ * expanded by one whole layer; the search stops when a layer meets the states
+ * visited from the other side, and the shortest connection found in that layer
+ * is an optimal solution. With a branching factor close to one on the deep
+ * jams, each side only has to reach about half of the solution depth.
+ * <p>
+ * Most goal placements cannot be reached from the initial state, and their
+ * number grows far faster with the grid size than the number of reachable
+ * states. If there are more than <tt>MAX_GOAL_STATES</tt> of them, the
+ * backward side is therefore not seeded at all: the forward side recognizes
+ * goal states by itself and the search becomes a plain breadth-first search.
+ */
+public class BidirectionalSearch {
+
+	/** The largest number of goal states the backward side starts from */
+	public static final int MAX_GOAL_STATES = 1 << 16;
+
+	/** The solution path is stored here */
+	public State[] path;
+
+	private Map<State, Link> forward = new HashMap<State, Link>();
+	private Map<State, Link> backward = new HashMap<State, Link>();
+
+	private MoveBuffer moves = new MoveBuffer();
+	private int searchCount;	// Nodes generated, including the roots
+	private int expanded = 0;
+	private boolean seeded;		// Whether the backward side started from the goal states
+
+	/**
+	 * This is the constructor that performs the bidirectional search to
+	 * compute a solution for the given puzzle.
+	 */
+	public BidirectionalSearch(Puzzle puzzle) {
+		State root = puzzle.getInitNode().getState();
+
+		if (root.isGoal()) {
+			path = new State[] { root };
+			searchCount = 1;
+			return;
+		}
+
+		List<State> forwardLayer = new ArrayList<State>();
+		forwardLayer.add(root);
+		forward.put(root, new Link(null, 0));
+
+		List<State> backwardLayer = new ArrayList<State>();
+		State[] goals = puzzle.getGoalStates(MAX_GOAL_STATES);
+		seeded = goals != null;
+		if (seeded) {
+			for (State goal : goals) {
+				backwardLayer.add(goal);
+				backward.put(goal, new Link(null, 0));
+			}
+		}
+
+		searchCount = 1 + backwardLayer.size();
+
+		while (!forwardLayer.isEmpty() && (!seeded || !backwardLayer.isEmpty())) {
+			Meeting meeting = new Meeting();
+
+			if (!seeded || forwardLayer.size() <= backwardLayer.size()) {
+				forwardLayer = expandLayer(forwardLayer, forward, backward, meeting);
+				if (meeting.length >= 0) {
+					path = join(meeting.near, meeting.far);
+					return;
+				}
+			} else {
+				backwardLayer = expandLayer(backwardLayer, backward, forward, meeting);
+				if (meeting.length >= 0) {
+					path = join(meeting.far, meeting.near);
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of nodes generated by this search, including the
+	 * initial state and all goal states it started from, if any.
+	 */
+	public int getSearchCount() {
+		return searchCount;
+	}
+
+	/** Returns the number of states expanded by this search. */
+	public int getExpandedCount() {
+		return expanded;
+	}
+
+	/**
+	 * Returns true if the backward side started from the goal states, or
+	 * false if there were too many of them and only the forward side ran.
+	 */
+	public boolean isBidirectional() {
+		return seeded;
+	}
+
+	/**
+	 * Expands every state of <tt>layer</tt>, recording new states in
+	 * <tt>visited</tt>, and returns the next layer. Every successor already
+	 * visited by the other side is a candidate connection; the shortest one is
+	 * stored in <tt>meeting</tt>.
+	 */
+	private List<State> expandLayer(List<State> layer, Map<State, Link> visited, Map<State, Link> other,
+			Meeting meeting) {
+		List<State> next = new ArrayList<State>();
+
+		for (State state : layer) {
+			int depth = visited.get(state).depth;
+			int count = state.expand(moves);
+			searchCount += count;
+			expanded++;
+
+			for (int i = 0; i < count; i++) {
+				State successor = state.move(moves.getCar(i), moves.getPosition(i));
+
+				Link link = other.get(successor);
+				if (link == null && !seeded && visited == forward && successor.isGoal()) {
+					// Found by the forward side; the goal ends the backward path.
+					link = new Link(null, 0);
+					backward.put(successor, link);
+				}
+
+				if (link != null) {
+					int length = depth + 1 + link.depth;
+					if (meeting.length < 0 || length < meeting.length) {
+						meeting.length = length;
+						meeting.near = state;
+						meeting.far = successor;
+					}
+				}
+
+				if (!visited.containsKey(successor)) {
+					visited.put(successor, new Link(state, depth + 1));
+					next.add(successor);
+				}
+			}
+		}
+
+		return next;
+	}
+
+	/**
+	 * Builds the solution path from the state <tt>last</tt> visited from the
+	 * initial state and the adjacent state <tt>first</tt> visited from the
+	 * goal states.
+	 */
+	private State[] join(State last, State first) {
+		List<State> states = new ArrayList<State>();
+
+		for (State s = last; s != null; s = forward.get(s).previous)
+			states.add(0, s);
+
+		for (State s = first; s != null; s = backward.get(s).previous)
+			states.add(s);
+
+		return states.toArray(new State[0]);
+	}
+
+	/** The state a visited state was reached from, and its distance. */
+	private static class Link {
+		State previous;
+		int depth;
+
+		Link(State previous, int depth) {
+			this.previous = previous;
+			this.depth = depth;
+		}
+	}
+
+	/** The shortest connection found while expanding a layer. */
+	private static class Meeting {
+		int length = -1;
+		State near;	// The expanded state
+		State far;	// Its successor, visited by the other side
+	}
+
+}
@@ -0,0 +1,219 @@
+package AStar;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An open list backed by a bucket queue. Since <tt>f</tt> values in rush hour
+ * searches are small non-negative integers (depth plus a heuristic bounded by
+ * the number of cars), every possible value gets its own bucket, and each
+ * bucket is a doubly linked FIFO list of entries. Adding a node and replacing
+ * one are O(1), polling is O(1) amortized, since the pointer to the lowest
+ * non-empty bucket only moves back when a node with a lower <tt>f</tt> value is
+ * added.
+ * <p>
+ * Ties are broken by the <tt>TieBreaking</tt> policy given to the constructor.
+ * LIFO order links new entries at the head of their bucket instead of the
+ * tail. To prefer deeper nodes, every <tt>f</tt> value is split into
+ * <tt>f + 1</tt> buckets, one per value of <tt>f - depth</tt> (which lies
+ * between 0 and <tt>f</tt>), numbered so that the buckets are ordered by
+ * <tt>f</tt> first and by <tt>f - depth</tt> second.
+ */
+public class BucketOpenList implements OpenList {
+
+	private static final int INITIAL_BUCKETS = 64;
+
+	private Entry[] heads = new Entry[INITIAL_BUCKETS];
+	private Entry[] tails = new Entry[INITIAL_BUCKETS];
+	private Map<State, Entry> index = new HashMap<State, Entry>();
+
+	private int minBucket = 0;	// No bucket below this one holds an entry
+	private TieBreaking tieBreaking;
+
+	/** Constructs an open list breaking ties in FIFO order. */
+	public BucketOpenList() {
+		this(TieBreaking.FIFO);
+	}
+
+	/** Constructs an open list breaking ties by the given policy. */
+	public BucketOpenList(TieBreaking tieBreaking) {
+		this.tieBreaking = tieBreaking;
+	}
+
+	@Override
+	public void add(HNode node) {
+		Entry entry = new Entry(node);
+		index.put(node.getState(), entry);
+		link(entry);
+	}
+
+	@Override
+	public HNode poll() {
+		if (index.isEmpty()) {
+			return null;
+		}
+
+		while (heads[minBucket] == null) {
+			minBucket++;
+		}
+
+		Entry entry = heads[minBucket];
+		unlink(entry);
+		index.remove(entry.node.getState());
+
+		return entry.node;
+	}
+
+	@Override
+	public HNode get(State state) {
+		Entry entry = index.get(state);
+		return entry == null ? null : entry.node;
+	}
+
+	@Override
+	public boolean contains(State state) {
+		return index.containsKey(state);
+	}
+
+	@Override
+	public void replace(HNode existing, HNode better) {
+		Entry entry = index.get(existing.getState());
+
+		if (entry == null || entry.node != existing) {
+			throw new IllegalArgumentException("Node to be replaced is not on the open list");
+		}
+
+		unlink(entry);
+		entry.node = better;
+		link(entry);
+	}
+
+	@Override
+	public int size() {
+		return index.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return index.isEmpty();
+	}
+
+	@Override
+	public void clear() {
+		for (int b = 0; b < heads.length; b++) {
+			heads[b] = null;
+			tails[b] = null;
+		}
+		index.clear();
+		minBucket = 0;
+	}
+
+	@Override
+	public TieBreaking getTieBreaking() {
+		return tieBreaking;
+	}
+
+	/** Returns the bucket of the given node. */
+	private int bucket(HNode node) {
+		int f = node.getF();
+
+		if (f < 0) {
+			throw new IllegalArgumentException("Bucket open list requires non-negative f values");
+		}
+
+		if (!tieBreaking.prefersDeeper()) {
+			return f;
+		}
+
+		// Bucket f * (f + 1) / 2 + (f - depth), ordered by f, then f - depth
+		int rest = f - node.getDepth();
+		if (rest < 0) {
+			throw new IllegalArgumentException("Bucket open list requires f values of at least the depth");
+		}
+		return (int) ((long) f * (f + 1) / 2) + rest;
+	}
+
+	/**
+	 * Links the entry into the bucket of its node, at the tail, or at the
+	 * head in LIFO order.
+	 */
+	private void link(Entry entry) {
+		int b = bucket(entry.node);
+
+		if (b >= heads.length) {
+			grow(b);
+		}
+
+		if (tieBreaking.isLifo()) {
+			entry.prev = null;
+			entry.next = heads[b];
+
+			if (heads[b] == null) {
+				tails[b] = entry;
+			} else {
+				heads[b].prev = entry;
+			}
+			heads[b] = entry;
+		} else {
+			entry.prev = tails[b];
+			entry.next = null;
+
+			if (tails[b] == null) {
+				heads[b] = entry;
+			} else {
+				tails[b].next = entry;
+			}
+			tails[b] = entry;
+		}
+
+		if (b < minBucket) {
+			minBucket = b;
+		}
+	}
+
+	/** Removes the entry from the bucket it is currently linked into. */
+	private void unlink(Entry entry) {
+		int b = bucket(entry.node);
+
+		if (entry.prev == null) {
+			heads[b] = entry.next;
+		} else {
+			entry.prev.next = entry.next;
+		}
+
+		if (entry.next == null) {
+			tails[b] = entry.prev;
+		} else {
+			entry.next.prev = entry.prev;
+		}
+
+		entry.prev = null;
+		entry.next = null;
+	}
+
+	private void grow(int b) {
+		int length = heads.length;
+
+		while (length <= b) {
+			length *= 2;
+		}
+
+		Entry[] newHeads = new Entry[length];
+		Entry[] newTails = new Entry[length];
+		System.arraycopy(heads, 0, newHeads, 0, heads.length);
+		System.arraycopy(tails, 0, newTails, 0, tails.length);
+		heads = newHeads;
+		tails = newTails;
+	}
+
+	private static class Entry {
+		HNode node;
+		Entry prev;
+		Entry next;
+
+		Entry(HNode node) {
+			this.node = node;
+		}
+	}
+
+}
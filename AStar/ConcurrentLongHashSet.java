@@ -0,0 +1,134 @@
+package AStar;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A set of primitive <tt>long</tt> keys that may be added to and queried by
+ * several threads at once. Like <tt>LongHashSet</tt>, it uses open addressing
+ * with linear probing over the mixed key, and the key <tt>0</tt> (which marks
+ * empty slots) is tracked separately. A key is inserted by a compare-and-set
+ * on its slot, so no locks are taken, and of several threads adding the same
+ * key, exactly one is told that it was new.
+ * <p>
+ * The table does not grow by itself, since moving the keys while other
+ * threads probe them would need far more coordination. Instead,
+ * <tt>ensureCapacity</tt> must be called while no other thread uses the set,
+ * e.g. between the layers of a level-synchronous search.
+ */
+public class ConcurrentLongHashSet {
+
+	private static final double MAX_LOAD = 0.5;
+
+	private AtomicLongArray keys;
+	private int mask;
+	private LongAdder size = new LongAdder();
+	private AtomicBoolean containsZero = new AtomicBoolean();
+
+	/**
+	 * Constructs a set that can hold <tt>expected</tt> keys before
+	 * <tt>ensureCapacity</tt> has to be called.
+	 */
+	public ConcurrentLongHashSet(int expected) {
+		allocate(capacityFor(expected));
+	}
+
+	/**
+	 * Adds the given key and returns <tt>true</tt> if it was not contained
+	 * before. Throws an <tt>IllegalStateException</tt> if the table is full.
+	 */
+	public boolean add(long key) {
+		if (key == 0) {
+			if (containsZero.compareAndSet(false, true)) {
+				size.increment();
+				return true;
+			}
+			return false;
+		}
+
+		int slot = LongHashSet.mix(key) & mask;
+		for (int probes = 0; probes <= mask; probes++) {
+			long current = keys.get(slot);
+
+			if (current == 0) {
+				if (keys.compareAndSet(slot, 0, key)) {
+					size.increment();
+					return true;
+				}
+				// Another thread took the slot; look at what it put there.
+				current = keys.get(slot);
+			}
+
+			if (current == key) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		throw new IllegalStateException("Concurrent hash set is full");
+	}
+
+	/** Returns true if and only if the given key is in the set. */
+	public boolean contains(long key) {
+		if (key == 0) {
+			return containsZero.get();
+		}
+
+		int slot = LongHashSet.mix(key) & mask;
+		for (int probes = 0; probes <= mask; probes++) {
+			long current = keys.get(slot);
+			if (current == key) {
+				return true;
+			}
+			if (current == 0) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/** Returns the number of keys in the set. */
+	public int size() {
+		return size.intValue();
+	}
+
+	/**
+	 * Grows the table, if necessary, so that it can hold <tt>expected</tt>
+	 * keys in total. Must not be called while other threads use the set.
+	 */
+	public void ensureCapacity(int expected) {
+		int capacity = capacityFor(expected);
+		if (capacity <= keys.length()) {
+			return;
+		}
+
+		AtomicLongArray old = keys;
+		allocate(capacity);
+
+		for (int i = 0; i < old.length(); i++) {
+			long key = old.get(i);
+			if (key != 0) {
+				int slot = LongHashSet.mix(key) & mask;
+				while (keys.get(slot) != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys.set(slot, key);
+			}
+		}
+	}
+
+	private static int capacityFor(int expected) {
+		long needed = Math.max(2, (long) Math.ceil(expected / MAX_LOAD));
+		if (needed > 1 << 30)
+			throw new IllegalArgumentException("Concurrent hash set cannot hold " + expected + " keys");
+		return Integer.highestOneBit((int) needed - 1) << 1;
+	}
+
+	private void allocate(int capacity) {
+		keys = new AtomicLongArray(capacity);
+		mask = capacity - 1;
+	}
+
+}
@@ -0,0 +1,226 @@
+package AStar;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the exact distance to the nearest goal state for every state
+ * reachable from the initial state of a puzzle (the "cluster" of the puzzle).
+ * It is built once by the constructor: a breadth-first search enumerates the
+ * cluster, then a retrograde breadth-first search starting from all goal
+ * states of the cluster assigns the distances. Since every move can be undone,
+ * the distance to a goal is the same in both directions.
+ * <p>
+ * The table is stored compactly as the sorted array of packed states (see
+ * <tt>Puzzle.encodeLong</tt>) and a parallel array of one-byte distances, i.e.,
+ * nine bytes per state. Afterwards, an optimal solution from any state of the
+ * cluster is found by greedy descent, always moving to a neighbour one step
+ * closer to the goal, which takes a few binary searches per move.
+ */
+public class DistanceDatabase {
+
+	/** The distance of states from which no goal state can be reached */
+	public static final int UNSOLVABLE = 255;
+
+	private Puzzle puzzle;
+	private long[] keys;		// Packed states, sorted ascending
+	private byte[] distances;	// Unsigned distance of the state with the same index
+	private int maxDistance = -1;
+
+	/**
+	 * Enumerates the cluster of the given puzzle and computes all distances.
+	 * The states of the puzzle must fit into a single <tt>long</tt>.
+	 */
+	public DistanceDatabase(Puzzle puzzle) {
+		if (!puzzle.fitsInLong())
+			throw new IllegalArgumentException("Puzzle " + puzzle.getName() + " does not fit into a single long");
+
+		this.puzzle = puzzle;
+		this.keys = enumerateCluster();
+		this.distances = new byte[keys.length];
+		computeDistances();
+	}
+
+	/** Returns the puzzle this database belongs to. */
+	public Puzzle getPuzzle() {
+		return puzzle;
+	}
+
+	/** Returns the number of states in the cluster. */
+	public int size() {
+		return keys.length;
+	}
+
+	/**
+	 * Returns the largest distance of any solvable state of the cluster, or -1
+	 * if no state of the cluster is solvable.
+	 */
+	public int getMaxDistance() {
+		return maxDistance;
+	}
+
+	/** Returns the packed state with index <tt>i</tt> (in ascending order). */
+	public long getKey(int i) {
+		return keys[i];
+	}
+
+	/** Returns the distance of the state with index <tt>i</tt>. */
+	public int getDistance(int i) {
+		return distances[i] & 0xff;
+	}
+
+	/**
+	 * Returns the distance of the given state to the nearest goal state,
+	 * <tt>UNSOLVABLE</tt> if there is no path to a goal state, or -1 if the
+	 * state does not belong to the cluster.
+	 */
+	public int getDistance(State state) {
+		return getDistance(puzzle.encodeLong(state));
+	}
+
+	/**
+	 * Returns the distance of the packed state <tt>key</tt>, in the same way
+	 * as <tt>getDistance(State)</tt>.
+	 */
+	public int getDistance(long key) {
+		int i = Arrays.binarySearch(keys, key);
+		return i < 0 ? -1 : distances[i] & 0xff;
+	}
+
+	/**
+	 * Returns all states of the cluster at the given distance to the nearest
+	 * goal state, in ascending order of their packed states. The states at
+	 * <tt>getMaxDistance()</tt> are the hardest ones of the cluster.
+	 */
+	public State[] getStatesAtDistance(int distance) {
+		int count = 0;
+		for (byte d : distances)
+			if ((d & 0xff) == distance)
+				count++;
+
+		State[] states = new State[count];
+		for (int i = 0, j = 0; j < count; i++)
+			if ((distances[i] & 0xff) == distance)
+				states[j++] = puzzle.decodeLong(keys[i]);
+		return states;
+	}
+
+	/**
+	 * Returns an optimal solution path from the given state to a goal state,
+	 * where the first element is the given state, or <tt>null</tt> if the
+	 * state is unsolvable or does not belong to the cluster.
+	 */
+	public State[] solve(State state) {
+		int distance = getDistance(state);
+
+		if (distance < 0 || distance == UNSOLVABLE)
+			return null;
+
+		State[] path = new State[distance + 1];
+		MoveBuffer moves = new MoveBuffer();
+		path[0] = state;
+
+		for (int d = 1; d <= distance; d++) {
+			State current = path[d - 1];
+			int count = current.expand(moves);
+
+			for (int i = 0; i < count && path[d] == null; i++) {
+				long key = puzzle.encodeLong(current, moves.getCar(i), moves.getPosition(i));
+				int j = Arrays.binarySearch(keys, key);
+				if (j >= 0 && (distances[j] & 0xff) == distance - d)
+					path[d] = current.move(moves.getCar(i), moves.getPosition(i));
+			}
+		}
+
+		return path;
+	}
+
+	/**
+	 * Returns all packed states reachable from the initial state, sorted
+	 * ascending.
+	 */
+	private long[] enumerateCluster() {
+		LongHashSet seen = new LongHashSet();
+		long[] queue = new long[1024];
+		int head = 0, tail = 0;
+		MoveBuffer moves = new MoveBuffer();
+
+		long root = puzzle.encodeLong(puzzle.getInitNode().getState());
+		seen.add(root);
+		queue[tail++] = root;
+
+		while (head < tail) {
+			State state = puzzle.decodeLong(queue[head++]);
+			int count = state.expand(moves);
+
+			for (int i = 0; i < count; i++) {
+				long key = puzzle.encodeLong(state, moves.getCar(i), moves.getPosition(i));
+				if (seen.add(key)) {
+					if (tail == queue.length)
+						queue = Arrays.copyOf(queue, tail * 2);
+					queue[tail++] = key;
+				}
+			}
+		}
+
+		long[] cluster = Arrays.copyOf(queue, tail);
+		Arrays.sort(cluster);
+		return cluster;
+	}
+
+	/**
+	 * Runs the retrograde breadth-first search from all goal states. Since
+	 * every expansion looks up all successors, the states are found through a
+	 * temporary hash table of their indices rather than by binary search,
+	 * which costs a cache miss per halving on large clusters.
+	 */
+	private void computeDistances() {
+		int[] queue = new int[keys.length];
+		int head = 0, tail = 0;
+		MoveBuffer moves = new MoveBuffer();
+
+		int capacity = Integer.highestOneBit(Math.max(2, 2 * keys.length) - 1) << 1;
+		int mask = capacity - 1;
+		int[] index = new int[capacity];	// Index + 1 of the state in the slot, or 0 if empty
+		for (int i = 0; i < keys.length; i++) {
+			int slot = LongHashSet.mix(keys[i]) & mask;
+			while (index[slot] != 0)
+				slot = (slot + 1) & mask;
+			index[slot] = i + 1;
+		}
+
+		Arrays.fill(distances, (byte) UNSOLVABLE);
+
+		for (int i = 0; i < keys.length; i++) {
+			if (puzzle.decodeLong(keys[i]).isGoal()) {
+				distances[i] = 0;
+				queue[tail++] = i;
+			}
+		}
+
+		while (head < tail) {
+			int i = queue[head++];
+			int distance = distances[i] & 0xff;
+			maxDistance = distance;
+
+			if (distance + 1 >= UNSOLVABLE)
+				throw new IllegalStateException("Distances of puzzle " + puzzle.getName() + " exceed the table format");
+
+			State state = puzzle.decodeLong(keys[i]);
+			int count = state.expand(moves);
+
+			for (int m = 0; m < count; m++) {
+				long key = puzzle.encodeLong(state, moves.getCar(m), moves.getPosition(m));
+				int slot = LongHashSet.mix(key) & mask;
+				while (keys[index[slot] - 1] != key)
+					slot = (slot + 1) & mask;
+
+				int j = index[slot] - 1;
+				if ((distances[j] & 0xff) == UNSOLVABLE) {
+					distances[j] = (byte) (distance + 1);
+					queue[tail++] = j;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+package AStar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class provides a binary file format for a <tt>DistanceDatabase</tt>,
+ * and read access to such files through a memory mapping. Opening a file only
+ * reads and checks its header, and every lookup is a binary search directly
+ * on the mapped pages, so neither the time to open a file nor the heap used
+ * depends on the size of the table.
+ * <p>
+ * All values are stored big-endian. The file starts with a header:
+ * <pre>
+ *   int   magic           0x52484442 ("RHDB")
+ *   int   version         1
+ *   long  signature       Puzzle.getLayoutSignature()
+ *   int   gridSize
+ *   int   numCars
+ *   long  count           number of entries
+ *   byte  orient, size, fixedPos     once per car
+ *   ...   padding to a multiple of 8 bytes
+ * </pre>
+ * followed by <tt>count</tt> packed states (<tt>long</tt>, sorted ascending)
+ * and <tt>count</tt> distances (unsigned <tt>byte</tt>, in the same order).
+ * A file is only opened for a puzzle whose signature, grid size and cars all
+ * match the header, since the signature is just a hash.
+ * A mapping is limited to 2 GB, so a file holds at most about 238 million
+ * states.
+ */
+public class DistanceFile {
+
+	private static final int MAGIC = 0x52484442;
+	private static final int VERSION = 1;
+	private static final int FIXED_HEADER = 32;
+
+	private LongBuffer keys;
+	private ByteBuffer distances;
+	private int count;
+	private Puzzle puzzle;
+
+	private DistanceFile(Puzzle puzzle, LongBuffer keys, ByteBuffer distances, int count) {
+		this.puzzle = puzzle;
+		this.keys = keys;
+		this.distances = distances;
+		this.count = count;
+	}
+
+	/** Writes the given database to the file <tt>path</tt>. */
+	public static void write(DistanceDatabase database, Path path) throws IOException {
+		Puzzle puzzle = database.getPuzzle();
+		int numCars = puzzle.getNumCars();
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(path.toFile()), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(puzzle.getLayoutSignature());
+			out.writeInt(puzzle.getGridSize());
+			out.writeInt(numCars);
+			out.writeLong(database.size());
+
+			for (int v = 0; v < numCars; v++) {
+				out.writeByte(puzzle.getCarOrient(v) ? 1 : 0);
+				out.writeByte(puzzle.getCarSize(v));
+				out.writeByte(puzzle.getFixedPosition(v));
+			}
+			for (int i = headerLength(numCars) - FIXED_HEADER - 3 * numCars; i > 0; i--)
+				out.writeByte(0);
+
+			for (int i = 0; i < database.size(); i++)
+				out.writeLong(database.getKey(i));
+			for (int i = 0; i < database.size(); i++)
+				out.writeByte(database.getDistance(i));
+		}
+	}
+
+	/**
+	 * Maps the file <tt>path</tt> for lookups of states of the given puzzle.
+	 * Throws an <tt>IOException</tt> if the file is not a distance file, or
+	 * if it was written for a puzzle with a different layout.
+	 */
+	public static DistanceFile open(Path path, Puzzle puzzle) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.limit() < FIXED_HEADER || buffer.getInt(0) != MAGIC)
+				throw new IOException("Not a distance file: " + path);
+			if (buffer.getInt(4) != VERSION)
+				throw new IOException("Unsupported distance file version " + buffer.getInt(4) + " in " + path);
+			if (buffer.getLong(8) != puzzle.getLayoutSignature() || buffer.getInt(16) != puzzle.getGridSize()
+					|| buffer.getInt(20) != puzzle.getNumCars())
+				throw new IOException("Distance file " + path + " does not match the layout of puzzle "
+						+ puzzle.getName());
+
+			long count = buffer.getLong(24);
+			int offset = headerLength(puzzle.getNumCars());
+
+			if (offset > buffer.limit())
+				throw new IOException("Distance file " + path + " is truncated");
+			for (int v = 0; v < puzzle.getNumCars(); v++) {
+				int car = FIXED_HEADER + 3 * v;
+				if (buffer.get(car) != (puzzle.getCarOrient(v) ? 1 : 0) || buffer.get(car + 1) != puzzle.getCarSize(v)
+						|| buffer.get(car + 2) != puzzle.getFixedPosition(v))
+					throw new IOException("Distance file " + path + " does not match car " + v + " of puzzle "
+							+ puzzle.getName());
+			}
+
+			if (count < 0 || offset + 9 * count != buffer.limit())
+				throw new IOException("Distance file " + path + " is truncated");
+
+			buffer.position(offset);
+			LongBuffer keys = buffer.slice().asLongBuffer();
+			keys.limit((int) count);
+
+			buffer.position(offset + 8 * (int) count);
+			ByteBuffer distances = buffer.slice();
+
+			return new DistanceFile(puzzle, keys, distances, (int) count);
+		}
+	}
+
+	/** Returns the number of states in the file. */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Returns the layout signature of the puzzle the file was written and
+	 * opened for (see <tt>Puzzle.getLayoutSignature</tt>).
+	 */
+	public long getLayoutSignature() {
+		return puzzle.getLayoutSignature();
+	}
+
+	/**
+	 * Returns the distance of the given state to the nearest goal state,
+	 * <tt>DistanceDatabase.UNSOLVABLE</tt> if there is no path to a goal
+	 * state, or -1 if the state is not in the file.
+	 */
+	public int getDistance(State state) {
+		long key = puzzle.encodeLong(state);
+		int lo = 0, hi = count - 1;
+
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			long k = keys.get(mid);
+
+			if (k < key)
+				lo = mid + 1;
+			else if (k > key)
+				hi = mid - 1;
+			else
+				return distances.get(mid) & 0xff;
+		}
+
+		return -1;
+	}
+
+	private static int headerLength(int numCars) {
+		return (FIXED_HEADER + 3 * numCars + 7) & ~7;
+	}
+
+}
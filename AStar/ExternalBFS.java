@@ -0,0 +1,460 @@
+package AStar;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This class performs a breadth-first search whose layers are kept on disk
+ * instead of in memory, so that it is limited by disk space rather than heap
+ * for puzzles whose state space does not fit into memory. Every layer is
+ * stored as a file of fixed-width records, one per state, each holding the
+ * <tt>Puzzle.getEncodedLength()</tt> words of <tt>Puzzle.encode</tt>. The
+ * records are sorted ascending, comparing them word by word, and free of
+ * duplicates. This works for any grid size and number of cars; when the
+ * states fit into a single <tt>long</tt>, a record is just the value of
+ * <tt>Puzzle.encodeLong</tt>.
+ * <p>
+ * To build the next layer, the states of the current one are streamed from
+ * disk and expanded. The successors are collected in memory up to
+ * <tt>runSize</tt> states at a time, then sorted and written out as a run.
+ * Duplicates are only detected afterwards (delayed duplicate detection): all
+ * runs are merged into a single sorted stream, which is streamed against the
+ * current and the previous layer, and every state found in neither of them
+ * goes to the next layer. Since every move can be undone, a successor of a
+ * state at depth <tt>d</tt> lies at depth <tt>d - 1</tt>, <tt>d</tt> or
+ * <tt>d + 1</tt>, so these two layers are the only ones that need checking.
+ * <p>
+ * When a layer holds a goal state, the path is reconstructed backwards: the
+ * predecessor of a state at depth <tt>d</tt> is any of its neighbours found in
+ * layer <tt>d - 1</tt>, which is looked up by binary search on the layer
+ * file. Like the other searches, the search is carried out by the constructor
+ * and the solution is stored in <tt>path</tt> (or <tt>null</tt> if there is
+ * none). The layer files are deleted when the search is done.
+ */
+public class ExternalBFS {
+
+	/**
+	 * The default number of successors sorted in memory at once (32 MB per
+	 * word of a packed state)
+	 */
+	public static final int DEFAULT_RUN_SIZE = 1 << 22;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The solution path is stored here */
+	public State[] path;
+
+	private Puzzle puzzle;
+	private Path directory;
+	private int runSize;
+	private int width;				// Words per packed state
+
+	private List<Path> layers = new ArrayList<Path>();
+	private List<Long> layerSizes = new ArrayList<Long>();
+	private long searchCount = 1;	// Nodes generated, including the root
+	private int runs = 0;			// Runs written, for unique file names
+	private long[] goal;			// The packed goal state found
+
+	/**
+	 * Performs the search in a new temporary directory, with runs of the
+	 * default size.
+	 */
+	public ExternalBFS(Puzzle puzzle) throws IOException {
+		this(puzzle, null, DEFAULT_RUN_SIZE);
+	}
+
+	/**
+	 * Performs the search, keeping its files in <tt>directory</tt> (or in a
+	 * new temporary directory if it is <tt>null</tt>) and sorting up to
+	 * <tt>runSize</tt> states in memory at once.
+	 */
+	public ExternalBFS(Puzzle puzzle, Path directory, int runSize) throws IOException {
+		if (runSize <= 0)
+			throw new IllegalArgumentException("Run size must be positive");
+
+		this.puzzle = puzzle;
+		this.width = puzzle.getEncodedLength();
+		this.runSize = Math.min(runSize, (Integer.MAX_VALUE - 8) / width);
+
+		boolean temporary = directory == null;
+		this.directory = temporary ? Files.createTempDirectory("rushhour-bfs") : directory;
+
+		try {
+			search();
+		} finally {
+			for (Path layer : layers)
+				Files.deleteIfExists(layer);
+			if (temporary)
+				Files.deleteIfExists(this.directory);
+		}
+	}
+
+	/**
+	 * Returns the number of states in each layer, starting with the layer of
+	 * the initial state and ending with the layer holding the goal (or the
+	 * last non-empty layer if there is none).
+	 */
+	public long[] getLayerSizes() {
+		long[] sizes = new long[layerSizes.size()];
+		for (int i = 0; i < sizes.length; i++)
+			sizes[i] = layerSizes.get(i);
+		return sizes;
+	}
+
+	/** Returns the number of nodes generated, including the initial node. */
+	public long getSearchCount() {
+		return searchCount;
+	}
+
+	private void search() throws IOException {
+		long[] root = puzzle.encode(puzzle.getInitNode().getState());
+		Path first = newFile("layer-0");
+
+		try (DataOutputStream out = openOutput(first)) {
+			write(out, root, 0);
+		}
+		addLayer(first, 1);
+
+		for (int depth = 0; layerSizes.get(depth) > 0; depth++) {
+			if (expandLayer(depth)) {
+				reconstructPath(goal, depth);
+				return;
+			}
+		}
+
+		// The last layer is empty.
+		layerSizes.remove(layerSizes.size() - 1);
+	}
+
+	/**
+	 * Expands layer <tt>depth</tt> into layer <tt>depth + 1</tt> and returns
+	 * false, or returns true as soon as a goal state is found in layer
+	 * <tt>depth</tt>, which is then stored in <tt>goal</tt>.
+	 */
+	private boolean expandLayer(int depth) throws IOException {
+		List<Path> runFiles = new ArrayList<Path>();
+		int capacity = (int) Math.min(runSize, Math.max(1024, 16 * layerSizes.get(depth)));
+		long[] buffer = new long[capacity * width];
+		long[] key = new long[width];
+		int count = 0;
+		MoveBuffer moves = new MoveBuffer();
+
+		try {
+			try (KeyReader reader = new KeyReader(layers.get(depth), width)) {
+				while (reader.hasNext()) {
+					reader.next(key);
+					State state = puzzle.decode(key);
+					if (state.isGoal()) {
+						goal = key;
+						return true;
+					}
+
+					int n = state.expand(moves);
+					searchCount += n;
+
+					for (int m = 0; m < n; m++) {
+						if (count == capacity) {
+							if (capacity < runSize) {
+								capacity = (int) Math.min(runSize, 2L * capacity);
+								buffer = Arrays.copyOf(buffer, capacity * width);
+							} else {
+								runFiles.add(writeRun(buffer, count));
+								count = 0;
+							}
+						}
+						puzzle.encode(state, moves.getCar(m), moves.getPosition(m), key);
+						System.arraycopy(key, 0, buffer, count++ * width, width);
+					}
+				}
+			}
+
+			if (count > 0)
+				runFiles.add(writeRun(buffer, count));
+			buffer = null;
+
+			Path next = newFile("layer-" + (depth + 1));
+			long size = mergeRuns(runFiles, depth, next);
+			addLayer(next, size);
+			return false;
+		} finally {
+			for (Path run : runFiles)
+				Files.deleteIfExists(run);
+		}
+	}
+
+	/** Sorts the first <tt>count</tt> keys, drops duplicates and writes them. */
+	private Path writeRun(long[] keys, int count) throws IOException {
+		if (width == 1)
+			Arrays.sort(keys, 0, count);
+		else
+			sort(keys, 0, count - 1);
+		Path run = newFile("run-" + runs++);
+
+		try (DataOutputStream out = openOutput(run)) {
+			for (int i = 0; i < count; i++)
+				if (i == 0 || compare(keys, i * width, keys, (i - 1) * width) != 0)
+					write(out, keys, i * width);
+		}
+		return run;
+	}
+
+	/**
+	 * Sorts the keys with indices <tt>lo</tt> to <tt>hi</tt> of a flat array of
+	 * multi-word keys by quicksort, recursing into the smaller part only.
+	 */
+	private void sort(long[] keys, int lo, int hi) {
+		while (hi - lo >= 16) {
+			int mid = (lo + hi) >>> 1;
+			if (compare(keys, mid * width, keys, lo * width) < 0)
+				swap(keys, mid, lo);
+			if (compare(keys, hi * width, keys, lo * width) < 0)
+				swap(keys, hi, lo);
+			if (compare(keys, hi * width, keys, mid * width) < 0)
+				swap(keys, hi, mid);
+
+			// The median of three goes to hi - 1 and serves as the pivot.
+			swap(keys, mid, hi - 1);
+			int pivot = (hi - 1) * width;
+			int i = lo, j = hi - 1;
+			while (true) {
+				while (compare(keys, ++i * width, keys, pivot) < 0)
+					;
+				while (compare(keys, --j * width, keys, pivot) > 0)
+					;
+				if (i >= j)
+					break;
+				swap(keys, i, j);
+			}
+			swap(keys, i, hi - 1);
+
+			if (i - lo < hi - i) {
+				sort(keys, lo, i - 1);
+				lo = i + 1;
+			} else {
+				sort(keys, i + 1, hi);
+				hi = i - 1;
+			}
+		}
+
+		for (int i = lo + 1; i <= hi; i++)
+			for (int j = i; j > lo && compare(keys, j * width, keys, (j - 1) * width) < 0; j--)
+				swap(keys, j, j - 1);
+	}
+
+	private void swap(long[] keys, int i, int j) {
+		for (int w = 0; w < width; w++) {
+			long t = keys[i * width + w];
+			keys[i * width + w] = keys[j * width + w];
+			keys[j * width + w] = t;
+		}
+	}
+
+	/** Compares two keys of the width of this search word by word. */
+	private int compare(long[] a, int offsetA, long[] b, int offsetB) {
+		for (int w = 0; w < width; w++) {
+			int c = Long.compare(a[offsetA + w], b[offsetB + w]);
+			if (c != 0)
+				return c;
+		}
+		return 0;
+	}
+
+	private void write(DataOutputStream out, long[] key, int offset) throws IOException {
+		for (int w = 0; w < width; w++)
+			out.writeLong(key[offset + w]);
+	}
+
+	/**
+	 * Merges the runs into the file <tt>next</tt>, dropping duplicates and all
+	 * states of layers <tt>depth</tt> and <tt>depth - 1</tt>. Returns the
+	 * number of states written.
+	 */
+	private long mergeRuns(List<Path> runFiles, int depth, Path next) throws IOException {
+		PriorityQueue<KeyReader> queue = new PriorityQueue<KeyReader>(Math.max(1, runFiles.size()),
+				(a, b) -> compare(a.current, 0, b.current, 0));
+		KeyReader current = null, previous = null;
+		long written = 0;
+
+		try (DataOutputStream out = openOutput(next)) {
+			for (Path run : runFiles) {
+				KeyReader reader = new KeyReader(run, width);
+				if (reader.advance())
+					queue.add(reader);
+				else
+					reader.close();
+			}
+
+			current = new KeyReader(layers.get(depth), width);
+			current.advance();
+			if (depth > 0) {
+				previous = new KeyReader(layers.get(depth - 1), width);
+				previous.advance();
+			}
+
+			boolean any = false;
+			long[] key = new long[width];
+			long[] last = new long[width];
+
+			while (!queue.isEmpty()) {
+				KeyReader reader = queue.poll();
+				System.arraycopy(reader.current, 0, key, 0, width);
+
+				if (reader.advance())
+					queue.add(reader);
+				else
+					reader.close();
+
+				if (any && compare(key, 0, last, 0) == 0)
+					continue;
+				any = true;
+				System.arraycopy(key, 0, last, 0, width);
+
+				if (current.skipTo(key) || (previous != null && previous.skipTo(key)))
+					continue;
+
+				write(out, key, 0);
+				written++;
+			}
+		} finally {
+			for (KeyReader reader : queue)
+				reader.close();
+			if (current != null)
+				current.close();
+			if (previous != null)
+				previous.close();
+		}
+
+		return written;
+	}
+
+	/**
+	 * Walks back from the goal state at the given depth to the initial state,
+	 * each time choosing a neighbour found in the layer below.
+	 */
+	private void reconstructPath(long[] goal, int depth) throws IOException {
+		path = new State[depth + 1];
+		path[depth] = puzzle.decode(goal);
+		MoveBuffer moves = new MoveBuffer();
+		long[] key = new long[width];
+
+		for (int d = depth; d > 0; d--) {
+			State state = path[d];
+			int n = state.expand(moves);
+
+			try (FileChannel layer = FileChannel.open(layers.get(d - 1), StandardOpenOption.READ)) {
+				for (int m = 0; m < n && path[d - 1] == null; m++) {
+					puzzle.encode(state, moves.getCar(m), moves.getPosition(m), key);
+					if (contains(layer, layerSizes.get(d - 1), key))
+						path[d - 1] = state.move(moves.getCar(m), moves.getPosition(m));
+				}
+			}
+
+			if (path[d - 1] == null)
+				throw new IllegalStateException("Layer " + (d - 1) + " holds no predecessor of a state of layer " + d);
+		}
+	}
+
+	/** Binary search for a key in a sorted file of <tt>size</tt> keys. */
+	private boolean contains(FileChannel layer, long size, long[] key) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8 * width);
+		long[] k = new long[width];
+		long lo = 0, hi = size - 1;
+
+		while (lo <= hi) {
+			long mid = (lo + hi) >>> 1;
+			buffer.clear();
+			while (buffer.hasRemaining())
+				if (layer.read(buffer, mid * 8 * width + buffer.position()) < 0)
+					throw new EOFException("Layer file is truncated");
+			for (int w = 0; w < width; w++)
+				k[w] = buffer.getLong(8 * w);
+
+			int c = compare(k, 0, key, 0);
+			if (c < 0)
+				lo = mid + 1;
+			else if (c > 0)
+				hi = mid - 1;
+			else
+				return true;
+		}
+		return false;
+	}
+
+	private void addLayer(Path file, long size) {
+		layers.add(file);
+		layerSizes.add(size);
+	}
+
+	private Path newFile(String name) {
+		return directory.resolve(name + ".bin");
+	}
+
+	private static DataOutputStream openOutput(Path file) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+	}
+
+	/** Streams the keys of a sorted file. */
+	private class KeyReader implements Closeable {
+		final DataInputStream in;
+		long remaining;
+		final long[] current;
+		boolean exhausted = false;
+
+		KeyReader(Path file, int width) throws IOException {
+			this.remaining = Files.size(file) / (8 * width);
+			this.current = new long[width];
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+		}
+
+		boolean hasNext() {
+			return remaining > 0;
+		}
+
+		void next(long[] key) throws IOException {
+			remaining--;
+			for (int w = 0; w < key.length; w++)
+				key[w] = in.readLong();
+		}
+
+		/** Reads the next key into <tt>current</tt>; returns false at the end. */
+		boolean advance() throws IOException {
+			if (remaining == 0) {
+				exhausted = true;
+				return false;
+			}
+			next(current);
+			return true;
+		}
+
+		/**
+		 * Advances past all keys below <tt>key</tt> and returns true if the
+		 * next one equals it. The keys asked for must be ascending, and
+		 * <tt>advance</tt> must have been called once before.
+		 */
+		boolean skipTo(long[] key) throws IOException {
+			while (!exhausted && compare(current, 0, key, 0) < 0)
+				advance();
+			return !exhausted && compare(current, 0, key, 0) == 0;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,312 @@
+package AStar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import Heuristics.Heuristic;
+
+/**
+ * This class performs hash-distributed parallel A* (HDA*) on a single rush hour
+ * puzzle. Every state is owned by one of several workers, chosen by a mixed
+ * hash of the state. Each worker keeps its own open list and its own table of
+ * the best node seen per state, and only ever expands states it owns.
+ * Successors owned by another worker are collected in batches and shipped
+ * through that worker's lock-free inbox; the owner evaluates the heuristic
+ * (with a heuristic instance of its own, obtained from the given factory),
+ * drops duplicates that are not shorter than a node it has seen, and reopens
+ * states reached on a shorter path.
+ * <p>
+ * A goal state received by its owner becomes the incumbent solution if it is
+ * shorter than the current one, and nodes whose <tt>f</tt> value is not below
+ * the length of the incumbent are pruned. The search ends when every worker is
+ * out of work and no batch is in flight. At that point no open node could
+ * lead to a shorter solution, so for an admissible heuristic the incumbent is
+ * optimal. Since states are reopened, this holds even if the heuristic is not
+ * consistent. Like <tt>AStar</tt>, the search is carried out by the
+ * constructor and the solution is stored in <tt>path</tt> (or <tt>null</tt> if
+ * there is none).
+ */
+public class HDAStar {
+
+	/** The number of nodes shipped to another worker at once */
+	public static final int BATCH_SIZE = 64;
+
+	/** Partial batches are shipped after this many expansions */
+	private static final int FLUSH_INTERVAL = 16;
+
+	/** The solution path is stored here */
+	public State[] path;
+
+	private Worker[] workers;
+
+	private volatile int bestDepth = Integer.MAX_VALUE;
+	private Node bestGoal;
+	private volatile boolean done = false;
+	private volatile Throwable failure;
+
+	// Termination detection
+	private AtomicLong inFlight = new AtomicLong();		// Nodes shipped but not yet received
+	private AtomicInteger idleWorkers = new AtomicInteger();
+	private AtomicLong activations = new AtomicLong();	// Number of times a worker left idleness
+
+	/**
+	 * Performs HDA* search on the given puzzle with <tt>threads</tt> workers,
+	 * each using a heuristic constructed by <tt>factory</tt>.
+	 */
+	public HDAStar(Puzzle puzzle, Function<Puzzle, Heuristic> factory, int threads) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("Number of threads must be positive");
+
+		workers = new Worker[threads];
+		for (int i = 0; i < threads; i++)
+			workers[i] = new Worker(i, factory.apply(puzzle));
+
+		Node root = puzzle.getInitNode();
+		workers[owner(root.getState())].receive(root);
+
+		Thread[] pool = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			pool[i] = new Thread(workers[i], "HDAStar-" + i);
+			pool[i].start();
+		}
+
+		try {
+			for (Thread thread : pool)
+				thread.join();
+		} catch (InterruptedException e) {
+			done = true;
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		if (failure != null)
+			throw new RuntimeException("Search failed", failure);
+
+		if (bestGoal != null) {
+			path = new State[bestGoal.getDepth() + 1];
+			for (Node node = bestGoal; node != null; node = node.getParent())
+				path[node.getDepth()] = node.getState();
+		}
+	}
+
+	/** Returns the number of workers. */
+	public int getThreads() {
+		return workers.length;
+	}
+
+	/**
+	 * Returns the number of nodes generated by all workers, including the
+	 * initial node.
+	 */
+	public long getSearchCount() {
+		long count = 1;
+		for (Worker worker : workers)
+			count += worker.generated;
+		return count;
+	}
+
+	/**
+	 * Returns the number of states held by all workers at the end of the
+	 * search, which is also the peak, since a worker never forgets the best
+	 * node of a state. Every open node is also held as the best node of its
+	 * state, so this covers the open lists as well.
+	 */
+	public long getStatesHeld() {
+		long held = 0;
+		for (Worker worker : workers)
+			held += worker.best.size();
+		return held;
+	}
+
+	/** Returns the number of nodes expanded by each worker. */
+	public long[] getExpansions() {
+		long[] expansions = new long[workers.length];
+		for (int i = 0; i < workers.length; i++)
+			expansions[i] = workers[i].expanded;
+		return expansions;
+	}
+
+	private int owner(State state) {
+		return (LongHashSet.mix(state.hashCode()) & 0x7fffffff) % workers.length;
+	}
+
+	private synchronized void offerGoal(Node goal) {
+		if (goal.getDepth() < bestDepth) {
+			bestGoal = goal;
+			bestDepth = goal.getDepth();
+		}
+	}
+
+	private class Worker implements Runnable {
+
+		final int id;
+		final Heuristic heuristic;
+		final OpenList open = new BucketOpenList();
+		final Map<State, HNode> best = new HashMap<State, HNode>();
+		final Queue<Node[]> inbox = new ConcurrentLinkedQueue<Node[]>();
+		final MoveBuffer moves = new MoveBuffer();
+
+		final Node[][] outgoing;	// One batch under construction per worker
+		final int[] outgoingCount;
+
+		boolean idle = false;
+		long expanded = 0;
+		long generated = 0;
+
+		Worker(int id, Heuristic heuristic) {
+			this.id = id;
+			this.heuristic = heuristic;
+			this.outgoing = new Node[workers.length][];
+			this.outgoingCount = new int[workers.length];
+		}
+
+		@Override
+		public void run() {
+			try {
+				int spins = 0;
+
+				while (!done) {
+					if (drainInbox())
+						spins = 0;
+
+					HNode current = open.poll();
+
+					if (current != null && current.getF() < bestDepth) {
+						expand(current);
+						if (expanded % FLUSH_INTERVAL == 0)
+							flushAll();
+						spins = 0;
+						continue;
+					}
+
+					// Nothing left that could lead to a shorter solution
+					if (current != null)
+						open.clear();
+					flushAll();
+
+					if (!inbox.isEmpty())
+						continue;
+
+					if (!idle) {
+						idle = true;
+						idleWorkers.incrementAndGet();
+					}
+
+					long before = activations.get();
+					if (idleWorkers.get() == workers.length && inFlight.get() == 0
+							&& activations.get() == before) {
+						done = true;
+						break;
+					}
+
+					if (++spins < 100)
+						Thread.yield();
+					else
+						LockSupport.parkNanos(50000);
+				}
+			} catch (Throwable t) {
+				failure = t;
+				done = true;
+			}
+		}
+
+		/** Receives all batches in the inbox; returns false if there were none. */
+		private boolean drainInbox() {
+			Node[] batch = inbox.poll();
+			if (batch == null)
+				return false;
+
+			if (idle) {
+				// Leave idleness before the batch stops counting as in flight.
+				idle = false;
+				idleWorkers.decrementAndGet();
+				activations.incrementAndGet();
+			}
+
+			do {
+				for (Node node : batch)
+					receive(node);
+				inFlight.addAndGet(-batch.length);
+				batch = inbox.poll();
+			} while (batch != null);
+
+			return true;
+		}
+
+		/** Takes a node of a state owned by this worker into its open list. */
+		void receive(Node node) {
+			State state = node.getState();
+			HNode seen = best.get(state);
+
+			if (seen != null && seen.getDepth() <= node.getDepth())
+				return;
+
+			int h = seen != null ? seen.getF() - seen.getDepth() : heuristic.getValue(state);
+			HNode hNode = new HNode(state, node.getDepth(), node.getParent(), h);
+
+			if (hNode.getF() >= bestDepth)
+				return;
+
+			if (state.isGoal()) {
+				offerGoal(hNode);
+				return;
+			}
+
+			best.put(state, hNode);
+			if (seen != null && open.contains(state))
+				open.replace(seen, hNode);
+			else
+				open.add(hNode);
+		}
+
+		private void expand(HNode current) {
+			State state = current.getState();
+			int count = state.expand(moves);
+			expanded++;
+			generated += count;
+
+			for (int i = 0; i < count; i++) {
+				State successor = state.move(moves.getCar(i), moves.getPosition(i));
+				Node node = new Node(successor, current.getDepth() + 1, current);
+				int target = owner(successor);
+
+				if (target == id) {
+					receive(node);
+				} else {
+					if (outgoing[target] == null)
+						outgoing[target] = new Node[BATCH_SIZE];
+					outgoing[target][outgoingCount[target]++] = node;
+					if (outgoingCount[target] == BATCH_SIZE)
+						flush(target);
+				}
+			}
+		}
+
+		private void flushAll() {
+			for (int target = 0; target < workers.length; target++)
+				if (outgoingCount[target] > 0)
+					flush(target);
+		}
+
+		private void flush(int target) {
+			int count = outgoingCount[target];
+			Node[] batch = count == BATCH_SIZE ? outgoing[target] : Arrays.copyOf(outgoing[target], count);
+
+			// Count the nodes as in flight before anyone can receive them.
+			inFlight.addAndGet(count);
+			workers[target].inbox.add(batch);
+
+			if (batch == outgoing[target])
+				outgoing[target] = null;
+			outgoingCount[target] = 0;
+		}
+	}
+
+}
@@ -10,6 +10,30 @@ public class HNode extends Node implements Comparable<HNode> {
 		
 	}
 
+	public HNode(State state, int depth, Node parent, int h) {
+		super(state, depth, parent);
+		this.f = depth + h;
+	}
+
+	/**
+	 * Constructs a node for weighted A*, whose f value is the depth plus the
+	 * heuristic value multiplied by <tt>weight</tt>, rounded down. Rounding
+	 * down keeps the cost of the solution found within <tt>weight</tt> times
+	 * the optimum.
+	 */
+	public HNode(State state, int depth, Node parent, int h, double weight) {
+		super(state, depth, parent);
+		this.f = depth + (int) (weight * h);
+	}
+
+	/**
+	 * Returns the estimated total path costs (depth plus heuristic value,
+	 * possibly weighted).
+	 */
+	public int getF() {
+		return f;
+	}
+
 	/**
 	 * Comparator
 	 */
@@ -0,0 +1,187 @@
+package AStar;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An open list backed by an indexed binary min-heap. Every entry remembers its
+ * position in the heap, so a node can be replaced by a better one in
+ * O(log n) without searching for it first. Entries with equal <tt>f</tt>
+ * values are ordered by the <tt>TieBreaking</tt> policy given to the
+ * constructor, using the depth of the nodes and a running sequence number.
+ * Unlike <tt>BucketOpenList</tt>, this
+ * implementation places no restriction on the range of <tt>f</tt> values.
+ */
+public class HeapOpenList implements OpenList {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private Entry[] heap = new Entry[INITIAL_CAPACITY];
+	private int size = 0;
+	private long sequence = 0;
+	private Map<State, Entry> index = new HashMap<State, Entry>();
+	private TieBreaking tieBreaking;
+
+	/** Constructs an open list breaking ties in FIFO order. */
+	public HeapOpenList() {
+		this(TieBreaking.FIFO);
+	}
+
+	/** Constructs an open list breaking ties by the given policy. */
+	public HeapOpenList(TieBreaking tieBreaking) {
+		this.tieBreaking = tieBreaking;
+	}
+
+	@Override
+	public void add(HNode node) {
+		if (size == heap.length) {
+			Entry[] newHeap = new Entry[heap.length * 2];
+			System.arraycopy(heap, 0, newHeap, 0, size);
+			heap = newHeap;
+		}
+
+		Entry entry = new Entry(node, sequence++);
+		index.put(node.getState(), entry);
+
+		entry.position = size;
+		heap[size++] = entry;
+		siftUp(entry.position);
+	}
+
+	@Override
+	public HNode poll() {
+		if (size == 0) {
+			return null;
+		}
+
+		Entry top = heap[0];
+		index.remove(top.node.getState());
+
+		size--;
+		if (size > 0) {
+			move(heap[size], 0);
+			siftDown(0);
+		}
+		heap[size] = null;
+
+		return top.node;
+	}
+
+	@Override
+	public HNode get(State state) {
+		Entry entry = index.get(state);
+		return entry == null ? null : entry.node;
+	}
+
+	@Override
+	public boolean contains(State state) {
+		return index.containsKey(state);
+	}
+
+	@Override
+	public void replace(HNode existing, HNode better) {
+		Entry entry = index.get(existing.getState());
+
+		if (entry == null || entry.node != existing) {
+			throw new IllegalArgumentException("Node to be replaced is not on the open list");
+		}
+
+		entry.node = better;
+		entry.sequence = sequence++;
+
+		// The new node may order either way, so restore the heap property in both directions
+		siftUp(entry.position);
+		siftDown(entry.position);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			heap[i] = null;
+		}
+		size = 0;
+		index.clear();
+	}
+
+	@Override
+	public TieBreaking getTieBreaking() {
+		return tieBreaking;
+	}
+
+	private void siftUp(int position) {
+		Entry entry = heap[position];
+
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (!less(entry, heap[parent])) {
+				break;
+			}
+			move(heap[parent], position);
+			position = parent;
+		}
+
+		move(entry, position);
+	}
+
+	private void siftDown(int position) {
+		Entry entry = heap[position];
+		int half = size >>> 1;
+
+		while (position < half) {
+			int child = 2 * position + 1;
+			int right = child + 1;
+
+			if (right < size && less(heap[right], heap[child])) {
+				child = right;
+			}
+
+			if (!less(heap[child], entry)) {
+				break;
+			}
+			move(heap[child], position);
+			position = child;
+		}
+
+		move(entry, position);
+	}
+
+	private void move(Entry entry, int position) {
+		heap[position] = entry;
+		entry.position = position;
+	}
+
+	private boolean less(Entry a, Entry b) {
+		int cmp = a.node.compareTo(b.node);
+		if (cmp != 0) {
+			return cmp < 0;
+		}
+
+		if (tieBreaking.prefersDeeper() && a.node.getDepth() != b.node.getDepth()) {
+			return a.node.getDepth() > b.node.getDepth();
+		}
+
+		return tieBreaking.isLifo() ? a.sequence > b.sequence : a.sequence < b.sequence;
+	}
+
+	private static class Entry {
+		HNode node;
+		long sequence;
+		int position;
+
+		Entry(HNode node, long sequence) {
+			this.node = node;
+			this.sequence = sequence;
+		}
+	}
+
+}
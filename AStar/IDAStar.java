@@ -0,0 +1,409 @@
+package AStar;
+
+import Heuristics.Heuristic;
+
+/**
+ * This class performs iterative-deepening A* (IDA*) search on a given rush hour
+ * puzzle with a given heuristic. Like <tt>AStar</tt>, the search is carried out
+ * by the constructor and the solution is stored in <tt>path</tt> (or
+ * <tt>null</tt> if there is none).
+ * <p>
+ * Instead of keeping every generated node on an open or closed list, the search
+ * runs depth-first and cuts off every branch whose <tt>f</tt> value exceeds the
+ * current bound; the bound is raised to the smallest value that was cut off
+ * until a solution is found. Only the current path is held in memory, plus a
+ * transposition table of fixed size. The table remembers the lowest depth at
+ * which a state was reached during the current iteration, so that the many
+ * transpositions of rush hour (the same cars moved in a different order) are
+ * not searched over and over again. When two states compete for the same slot
+ * of the table, the older one is simply overwritten, which costs some pruning,
+ * but never optimality. States are packed as by <tt>Puzzle.encode</tt>, so the
+ * table works for puzzles of any size.
+ * <p>
+ * On an unsolvable puzzle the bound keeps rising, so the search has to notice
+ * when it has seen every reachable state. If an iteration overwrote no entry
+ * of the table and reached no more distinct states than the one before, the
+ * table holds all states reached, and every successor of them is checked
+ * against it. If none is missing, the whole reachable space has been searched
+ * and the puzzle is unsolvable. This ends the search soon after the bound
+ * exceeds the distance of the farthest reachable state, as long as those
+ * states fit into the table.
+ * <p>
+ * Otherwise, that is, without a table or with more reachable states than the
+ * table can hold, the search only relies on the fact that an optimal solution
+ * visits every state at most once: its length is less than the product of
+ * the numbers of positions of all cars, and branches beyond that depth are
+ * cut off without raising the next bound. This bound is astronomical, so such
+ * searches take exponential time on unsolvable puzzles and should be given a
+ * <tt>SearchBudget</tt>; <tt>getStatus()</tt> then tells whether the search
+ * stopped early. The constructors without a budget set no limit.
+ */
+public class IDAStar {
+
+	/**
+	 * The default number of slots of the transposition table (16 MB for states
+	 * of a single word)
+	 */
+	public static final int DEFAULT_TABLE_SIZE = 1 << 20;
+
+	/** The solution path is stored here */
+	public State[] path;
+
+	private Puzzle puzzle;
+	private Heuristic heuristic;
+	private TranspositionTable table;
+	private long[] key;		// Reused buffer for packing states
+	private SearchBudget budget;
+	private SearchStatus status;
+	private long startTime;
+
+	private State[] stack = new State[64];			// The states on the current path
+	private MoveBuffer[] buffers = new MoveBuffer[64];	// One move buffer per depth
+
+	private int bound;
+	private int nextBound;
+	private int maxDepth;			// No optimal solution is longer
+	private int iteration = 0;
+	private int peakPath = 0;		// The most states on the current path at once
+	private int reached = -1;		// Distinct states reached by the last complete iteration
+	private int searchCount = 1;	// Nodes generated, including the root
+	private long expanded = 0;
+
+	/**
+	 * Performs IDA* search using a transposition table of the default size.
+	 */
+	public IDAStar(Puzzle puzzle, Heuristic heuristic) {
+		this(puzzle, heuristic, DEFAULT_TABLE_SIZE);
+	}
+
+	/**
+	 * Performs IDA* search using a transposition table with
+	 * <tt>tableSize</tt> slots, which is rounded up to a power of two. A size
+	 * of zero disables the table.
+	 */
+	public IDAStar(Puzzle puzzle, Heuristic heuristic, int tableSize) {
+		this(puzzle, heuristic, tableSize, new SearchBudget());
+	}
+
+	/**
+	 * Performs IDA* search using a transposition table of the default size,
+	 * but stops as soon as the given budget is exhausted or cancelled.
+	 */
+	public IDAStar(Puzzle puzzle, Heuristic heuristic, SearchBudget budget) {
+		this(puzzle, heuristic, DEFAULT_TABLE_SIZE, budget);
+	}
+
+	/**
+	 * Performs IDA* search using a transposition table with
+	 * <tt>tableSize</tt> slots (zero disables the table) within the given
+	 * budget. The number of states held, as checked against the budget, is
+	 * the length of the current path.
+	 */
+	public IDAStar(Puzzle puzzle, Heuristic heuristic, int tableSize, SearchBudget budget) {
+		if (tableSize < 0)
+			throw new IllegalArgumentException("Table size must not be negative");
+
+		this.puzzle = puzzle;
+		this.heuristic = heuristic;
+		this.budget = budget;
+		this.key = new long[puzzle.getEncodedLength()];
+		this.maxDepth = maxDepth(puzzle);
+
+		if (tableSize > 0) {
+			this.table = new TranspositionTable(tableSize, key.length);
+		}
+
+		startTime = System.nanoTime();
+
+		State root = puzzle.getInitNode().getState();
+		int h = heuristic.getValue(root);
+		bound = h;
+
+		while (true) {
+			nextBound = Integer.MAX_VALUE;
+			iteration++;
+			if (table != null) {
+				table.reset();
+			}
+
+			int depth = search(root, 0, h);
+
+			if (depth >= 0) {
+				path = new State[depth + 1];
+				System.arraycopy(stack, 0, path, 0, depth + 1);
+				status = SearchStatus.SOLVED;
+				return;
+			}
+
+			if (status != null) {
+				return;
+			}
+
+			// Nothing was cut off, so the whole reachable space has been searched.
+			if (nextBound == Integer.MAX_VALUE) {
+				status = SearchStatus.UNSOLVABLE;
+				return;
+			}
+
+			if (table != null && !table.overwritten) {
+				if (table.size == reached && table.isClosed(puzzle, iteration, key)) {
+					status = SearchStatus.UNSOLVABLE;
+					return;
+				}
+				reached = table.size;
+			} else {
+				reached = -1;
+			}
+
+			bound = nextBound;
+		}
+	}
+
+	/**
+	 * Returns the product of the numbers of positions of all cars minus one,
+	 * capped at <tt>Integer.MAX_VALUE</tt>. The goal car has one position
+	 * more, past the exit.
+	 */
+	private static int maxDepth(Puzzle puzzle) {
+		int gridSize = puzzle.getGridSize();
+		long states = 1;
+
+		for (int v = 0; v < puzzle.getNumCars() && states <= Integer.MAX_VALUE; v++) {
+			states *= gridSize - puzzle.getCarSize(v) + (v == 0 ? 2 : 1);
+		}
+
+		return (int) Math.min(Integer.MAX_VALUE, states - 1);
+	}
+
+	/**
+	 * Returns the number of nodes generated by this search over all
+	 * iterations, including the initial node.
+	 */
+	public int getSearchCount() {
+		return searchCount;
+	}
+
+	/** Returns the number of iterations, i.e., distinct bounds searched. */
+	public int getIterations() {
+		return iteration;
+	}
+
+	/**
+	 * Returns the largest number of states that were on the current path at
+	 * once, i.e., the greatest depth searched plus one.
+	 */
+	public int getPeakPathLength() {
+		return peakPath;
+	}
+
+	/**
+	 * Returns the number of slots of the transposition table, which are
+	 * allocated up front, or 0 if there is none.
+	 */
+	public int getTableSize() {
+		return table != null ? table.depths.length : 0;
+	}
+
+	/**
+	 * Returns the outcome of this search. <tt>path</tt> is set if and only
+	 * if it is <tt>SearchStatus.SOLVED</tt>.
+	 */
+	public SearchStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Searches below the given state, which is reached at depth <tt>g</tt>
+	 * and has the heuristic value <tt>h</tt>. Returns the depth of the goal
+	 * state if one was found within the bound, and -1 otherwise, also when
+	 * the budget is exhausted, which sets <tt>status</tt>.
+	 */
+	private int search(State state, int g, int h) {
+		int f = g + h;
+
+		if (f > bound) {
+			if (f < nextBound && f <= maxDepth) {
+				nextBound = f;
+			}
+			return -1;
+		}
+
+		push(state, g);
+
+		if (state.isGoal()) {
+			return g;
+		}
+
+		if (table != null) {
+			puzzle.encode(state, key);
+			if (!table.visit(key, g, iteration)) {
+				return -1;
+			}
+		}
+
+		status = budget.check(expanded, g + 1, startTime, System.nanoTime());
+		if (status != null) {
+			return -1;
+		}
+		expanded++;
+
+		MoveBuffer moves = buffers[g];
+		int count = state.expand(moves);
+		searchCount += count;
+
+		State parent = g > 0 ? stack[g - 1] : null;
+
+		for (int i = 0; i < count; i++) {
+			State successor = state.move(moves.getCar(i), moves.getPosition(i));
+
+			// Never slide a car straight back to where it came from.
+			if (parent != null && successor.equals(parent)) {
+				continue;
+			}
+
+			int depth = search(successor, g + 1, heuristic.getValue(successor));
+			if (depth >= 0 || status != null) {
+				return depth;
+			}
+		}
+
+		return -1;
+	}
+
+	private void push(State state, int g) {
+		if (g == stack.length) {
+			State[] newStack = new State[g * 2];
+			MoveBuffer[] newBuffers = new MoveBuffer[g * 2];
+			System.arraycopy(stack, 0, newStack, 0, g);
+			System.arraycopy(buffers, 0, newBuffers, 0, g);
+			stack = newStack;
+			buffers = newBuffers;
+		}
+
+		if (buffers[g] == null) {
+			buffers[g] = new MoveBuffer();
+		}
+
+		stack[g] = state;
+		if (g >= peakPath) {
+			peakPath = g + 1;
+		}
+	}
+
+	/**
+	 * A table of packed states of <tt>width</tt> words each, recording for
+	 * each the lowest depth at which it was reached in a given iteration. A
+	 * state goes into the first of <tt>PROBES</tt> consecutive slots not used
+	 * in the current iteration, and only if there is none, the first slot is
+	 * overwritten.
+	 */
+	private static class TranspositionTable {
+
+		private static final int PROBES = 4;
+
+		private long[] keys;
+		private int[] depths;
+		private int[] iterations;
+		private int mask;
+		private int width;
+
+		int size;				// Distinct states recorded in the current iteration
+		boolean overwritten;	// An entry of the current iteration was lost
+
+		TranspositionTable(int size, int width) {
+			int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+			keys = new long[capacity * width];
+			depths = new int[capacity];
+			iterations = new int[capacity];
+			mask = capacity - 1;
+			this.width = width;
+		}
+
+		/**
+		 * Records that the state <tt>key</tt> was reached at depth
+		 * <tt>g</tt>. Returns <tt>false</tt> if it was already reached in the
+		 * same iteration at a depth not greater than <tt>g</tt>, in which case
+		 * everything below it has been searched already with at least the
+		 * same remaining budget.
+		 */
+		boolean visit(long[] key, int g, int iteration) {
+			int home = LongArrayHashSet.mix(key, 0, width) & mask;
+			int slot = -1;
+
+			for (int i = 0; i < PROBES; i++) {
+				int s = (home + i) & mask;
+				if (iterations[s] != iteration) {
+					if (slot < 0)
+						slot = s;
+				} else if (equals(s, key)) {
+					if (depths[s] <= g) {
+						return false;
+					}
+					depths[s] = g;
+					return true;
+				}
+			}
+
+			if (slot < 0) {
+				slot = home;
+				overwritten = true;
+			}
+
+			System.arraycopy(key, 0, keys, slot * width, width);
+			depths[slot] = g;
+			iterations[slot] = iteration;
+			size++;
+			return true;
+		}
+
+		/** Starts counting the states of a new iteration. */
+		void reset() {
+			size = 0;
+			overwritten = false;
+		}
+
+		/**
+		 * Returns true if every successor of every state recorded in the
+		 * given iteration is recorded as well, i.e., the recorded states make
+		 * up everything reachable from the initial state. <tt>key</tt> is a
+		 * buffer of <tt>width</tt> words.
+		 */
+		boolean isClosed(Puzzle puzzle, int iteration, long[] key) {
+			MoveBuffer moves = new MoveBuffer();
+
+			for (int slot = 0; slot <= mask; slot++) {
+				if (iterations[slot] != iteration)
+					continue;
+
+				System.arraycopy(keys, slot * width, key, 0, width);
+				State state = puzzle.decode(key);
+				int count = state.expand(moves);
+
+				for (int i = 0; i < count; i++) {
+					puzzle.encode(state, moves.getCar(i), moves.getPosition(i), key);
+					if (!contains(key, iteration))
+						return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean contains(long[] key, int iteration) {
+			int home = LongArrayHashSet.mix(key, 0, width) & mask;
+			for (int i = 0; i < PROBES; i++) {
+				int s = (home + i) & mask;
+				if (iterations[s] == iteration && equals(s, key))
+					return true;
+			}
+			return false;
+		}
+
+		private boolean equals(int slot, long[] key) {
+			for (int w = 0; w < width; w++)
+				if (keys[slot * width + w] != key[w])
+					return false;
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,184 @@
+package AStar;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * This class provides a compact binary format for puzzle files, as an
+ * alternative to the text format read by <tt>Puzzle.readPuzzlesFromFile</tt>.
+ * Loading it needs no tokenizing or number parsing: every puzzle is
+ * constructed straight from the bytes of a (memory-mapped) buffer.
+ * <p>
+ * All values are stored big-endian. The file starts with a header:
+ * <pre>
+ *   int   magic           0x52484A4D ("RHJM")
+ *   int   version         1
+ *   int   count           number of puzzles
+ * </pre>
+ * followed by the puzzles, each as:
+ * <pre>
+ *   short nameLength      length of the name in bytes
+ *   byte  name[]          the name, UTF-8 encoded
+ *   byte  gridSize
+ *   byte  numCars
+ *   byte  x, y, orient, size      once per car (orient 1 = vertical)
+ * </pre>
+ * Grid sizes and coordinates are therefore limited to 255.
+ */
+public class JamFile {
+
+	/** The customary file name extension of binary puzzle files */
+	public static final String EXTENSION = ".rhj";
+
+	private static final int MAGIC = 0x52484A4D;
+	private static final int VERSION = 1;
+	private static final int HEADER = 12;
+
+	private JamFile() {
+	}
+
+	/**
+	 * Converts the text puzzle file called <tt>textFile</tt> into a binary
+	 * one, reading and writing one puzzle at a time. Returns the number of
+	 * puzzles converted.
+	 */
+	public static int convert(String textFile, Path binaryFile) throws IOException {
+		try (PuzzleReader reader = new PuzzleReader(textFile)) {
+			return write(reader, binaryFile);
+		}
+	}
+
+	/**
+	 * Writes the given puzzles to the binary file <tt>path</tt> and returns
+	 * their number.
+	 */
+	public static int write(Iterator<Puzzle> puzzles, Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+			int count = 0;
+
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(0);
+
+			while (puzzles.hasNext()) {
+				Puzzle puzzle = puzzles.next();
+				byte[] name = puzzle.getName().getBytes(StandardCharsets.UTF_8);
+				int numCars = puzzle.getNumCars();
+				int length = 2 + name.length + 2 + 4 * numCars;
+
+				if (name.length > 0xffff || puzzle.getGridSize() > 0xff || numCars > 0xff)
+					throw new IllegalArgumentException("Puzzle " + puzzle.getName() + " exceeds the binary format");
+
+				if (buffer.remaining() < length) {
+					drain(channel, buffer);
+					if (buffer.capacity() < length)
+						buffer = ByteBuffer.allocate(length);
+				}
+
+				buffer.putShort((short) name.length).put(name);
+				buffer.put((byte) puzzle.getGridSize()).put((byte) numCars);
+
+				State init = puzzle.getInitNode().getState();
+				for (int v = 0; v < numCars; v++) {
+					boolean orient = puzzle.getCarOrient(v);
+					int fixed = puzzle.getFixedPosition(v);
+					int variable = init.getVariablePosition(v);
+
+					buffer.put((byte) (orient ? fixed : variable));
+					buffer.put((byte) (orient ? variable : fixed));
+					buffer.put((byte) (orient ? 1 : 0));
+					buffer.put((byte) puzzle.getCarSize(v));
+				}
+
+				count++;
+			}
+
+			drain(channel, buffer);
+
+			// Now that the number of puzzles is known, fill it into the header.
+			ByteBuffer header = ByteBuffer.allocate(4).putInt(count);
+			header.flip();
+			channel.write(header, 8);
+
+			return count;
+		}
+	}
+
+	/** Maps the binary file <tt>path</tt> and loads all of its puzzles. */
+	public static Puzzle[] load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), path.toString());
+		}
+	}
+
+	/**
+	 * Constructs all puzzles stored in the given buffer, starting at its
+	 * current position. <tt>source</tt> names the buffer in error messages.
+	 * Throws an <tt>IOException</tt> if the buffer does not hold a complete
+	 * binary puzzle file.
+	 */
+	public static Puzzle[] read(ByteBuffer buffer, String source) throws IOException {
+		if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC)
+			throw new IOException("Not a binary puzzle file: " + source);
+		if (buffer.getInt() != VERSION)
+			throw new IOException("Unsupported binary puzzle file version in " + source);
+
+		// Every puzzle takes at least four bytes (the name length, grid size
+		// and number of cars).
+		int count = buffer.getInt();
+		if (count < 0 || count > buffer.remaining() / 4)
+			throw new IOException("Invalid puzzle count " + count + " in binary puzzle file " + source);
+
+		Puzzle[] puzzles = new Puzzle[count];
+		boolean[] orient = new boolean[0];
+		int[] size = new int[0], x = new int[0], y = new int[0];
+		byte[] name = new byte[0];
+
+		try {
+			for (int i = 0; i < puzzles.length; i++) {
+				int nameLength = buffer.getShort() & 0xffff;
+				if (name.length < nameLength)
+					name = new byte[nameLength];
+				buffer.get(name, 0, nameLength);
+
+				int gridSize = buffer.get() & 0xff;
+				int numCars = buffer.get() & 0xff;
+
+				if (orient.length != numCars) {
+					orient = new boolean[numCars];
+					size = new int[numCars];
+					x = new int[numCars];
+					y = new int[numCars];
+				}
+
+				for (int v = 0; v < numCars; v++) {
+					x[v] = buffer.get() & 0xff;
+					y[v] = buffer.get() & 0xff;
+					orient[v] = buffer.get() != 0;
+					size[v] = buffer.get() & 0xff;
+				}
+
+				puzzles[i] = new Puzzle(new String(name, 0, nameLength, StandardCharsets.UTF_8), gridSize, numCars,
+						orient, size, x, y);
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Binary puzzle file " + source + " is truncated");
+		}
+
+		return puzzles;
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+}
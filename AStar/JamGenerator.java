@@ -0,0 +1,108 @@
+package AStar;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class generates random rush hour puzzles of any grid size. The goal car
+ * (of size 2) is placed horizontally in the exit row, which is row
+ * <tt>(gridSize - 1) / 2</tt> as on the standard 6x6 board, within the left
+ * half of the grid. The other cars are given random orientations, sizes (2 or,
+ * less often, 3) and positions, and are added as long as they fit without
+ * overlapping, until the requested share of the cells is covered. No other
+ * horizontal car is placed in the exit row, since one on the right of the goal
+ * car would block it for good.
+ * <p>
+ * The puzzles are not necessarily solvable. The generator is seeded, so the
+ * same seed always yields the same sequence of puzzles.
+ */
+public class JamGenerator {
+
+	/** The share of the cars that are of size 3 */
+	private static final double LONG_CARS = 0.25;
+
+	/** The number of failed placements after which a puzzle is considered full */
+	private static final int MAX_FAILURES = 1000;
+
+	private Random random;
+
+	/** Constructs a generator with the given seed. */
+	public JamGenerator(long seed) {
+		random = new Random(seed);
+	}
+
+	/**
+	 * Generates a puzzle called <tt>name</tt> on a grid of the given size,
+	 * with cars covering about <tt>density</tt> of its cells (a value in
+	 * <tt>(0, 1]</tt>). Densities of 0.4 to 0.6 are typical for hand-made
+	 * puzzles; the higher ones may not be reached on small grids.
+	 */
+	public Puzzle generate(String name, int gridSize, double density) {
+		if (gridSize < 3)
+			throw new IllegalArgumentException("Grid size must be at least 3");
+		if (!(density > 0 && density <= 1))
+			throw new IllegalArgumentException("Density must be within (0, 1]");
+
+		int cells = gridSize * gridSize;
+		int exitRow = (gridSize - 1) / 2;
+		boolean[] grid = new boolean[cells];
+
+		int capacity = 8;
+		boolean[] orient = new boolean[capacity];
+		int[] size = new int[capacity];
+		int[] x = new int[capacity];
+		int[] y = new int[capacity];
+
+		orient[0] = false;
+		size[0] = 2;
+		x[0] = random.nextInt(gridSize / 2);
+		y[0] = exitRow;
+		grid[x[0] * gridSize + y[0]] = grid[(x[0] + 1) * gridSize + y[0]] = true;
+
+		int numCars = 1, covered = 2, failures = 0;
+
+		while (covered < density * cells && failures < MAX_FAILURES) {
+			boolean o = random.nextBoolean();
+			int s = random.nextDouble() < LONG_CARS ? 3 : 2;
+			int fixed = random.nextInt(gridSize);
+			int variable = random.nextInt(gridSize - s + 1);
+
+			if ((!o && fixed == exitRow) || !fits(grid, gridSize, o, s, fixed, variable)) {
+				failures++;
+				continue;
+			}
+
+			if (numCars == capacity) {
+				capacity *= 2;
+				orient = Arrays.copyOf(orient, capacity);
+				size = Arrays.copyOf(size, capacity);
+				x = Arrays.copyOf(x, capacity);
+				y = Arrays.copyOf(y, capacity);
+			}
+
+			orient[numCars] = o;
+			size[numCars] = s;
+			x[numCars] = o ? fixed : variable;
+			y[numCars] = o ? variable : fixed;
+			for (int d = 0; d < s; d++)
+				grid[(x[numCars] + (o ? 0 : d)) * gridSize + y[numCars] + (o ? d : 0)] = true;
+
+			numCars++;
+			covered += s;
+			failures = 0;
+		}
+
+		return new Puzzle(name, gridSize, numCars, orient, size, x, y);
+	}
+
+	private static boolean fits(boolean[] grid, int gridSize, boolean orient, int size, int fixed, int variable) {
+		for (int d = 0; d < size; d++) {
+			int xv = orient ? fixed : variable + d;
+			int yv = orient ? variable + d : fixed;
+			if (grid[xv * gridSize + yv])
+				return false;
+		}
+		return true;
+	}
+
+}
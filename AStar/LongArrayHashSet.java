@@ -0,0 +1,168 @@
+package AStar;
+
+import java.util.Arrays;
+
+/**
+ * A set of fixed-width keys of several <tt>long</tt> words each, using open
+ * addressing with linear probing. It is meant for states packed by
+ * <tt>Puzzle.encode</tt> when they do not fit into a single <tt>long</tt>,
+ * so that, like with <tt>LongHashSet</tt>, a visited state costs a few words
+ * in one flat array instead of a <tt>State</tt> object, its position array
+ * and a hash table entry.
+ * <p>
+ * The keys are copied into the table, so the caller may reuse the array it
+ * passes in. The all-zero key marks an empty slot, so its membership is
+ * tracked separately.
+ */
+public class LongArrayHashSet {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final double MAX_LOAD = 0.5;
+
+	private final int width;
+	private long[] keys;		// Slot i holds the words keys[i * width] to keys[i * width + width - 1]
+	private int mask;
+	private int size = 0;
+	private int threshold;
+	private boolean containsZero = false;
+
+	/** Constructs a set of keys of <tt>width</tt> words each. */
+	public LongArrayHashSet(int width) {
+		this(width, INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Constructs a set of keys of <tt>width</tt> words each that can hold
+	 * <tt>expected</tt> keys before it has to grow.
+	 */
+	public LongArrayHashSet(int width, int expected) {
+		if (width <= 0)
+			throw new IllegalArgumentException("Key width must be positive");
+
+		this.width = width;
+		int capacity = Integer.highestOneBit(Math.max(2, (int) Math.ceil(expected / MAX_LOAD)) - 1) << 1;
+		allocate(capacity);
+	}
+
+	/** Returns the number of words per key. */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Adds the given key and returns <tt>true</tt> if it was not contained
+	 * before. Only the first <tt>getWidth()</tt> words of the array are used.
+	 */
+	public boolean add(long[] key) {
+		if (isZero(key, 0)) {
+			if (containsZero) {
+				return false;
+			}
+			containsZero = true;
+			size++;
+			return true;
+		}
+
+		int slot = hash(key, 0) & mask;
+		while (!isZero(keys, slot * width)) {
+			if (equals(keys, slot * width, key)) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		System.arraycopy(key, 0, keys, slot * width, width);
+		if (++size >= threshold) {
+			rehash(2 * (keys.length / width));
+		}
+		return true;
+	}
+
+	/** Returns true if and only if the given key is in the set. */
+	public boolean contains(long[] key) {
+		if (isZero(key, 0)) {
+			return containsZero;
+		}
+
+		int slot = hash(key, 0) & mask;
+		while (!isZero(keys, slot * width)) {
+			if (equals(keys, slot * width, key)) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/** Returns the number of keys in the set. */
+	public int size() {
+		return size;
+	}
+
+	/** Returns true if and only if the set holds no keys. */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Removes all keys, keeping the current capacity. */
+	public void clear() {
+		Arrays.fill(keys, 0L);
+		containsZero = false;
+		size = 0;
+	}
+
+	private void allocate(int capacity) {
+		if ((long) capacity * width > Integer.MAX_VALUE - 8)
+			throw new IllegalStateException("Set of " + width + "-word keys cannot grow beyond " + size + " keys");
+
+		keys = new long[capacity * width];
+		mask = capacity - 1;
+		threshold = (int) (capacity * MAX_LOAD);
+	}
+
+	private void rehash(int capacity) {
+		long[] old = keys;
+		allocate(capacity);
+
+		for (int from = 0; from < old.length; from += width) {
+			if (!isZero(old, from)) {
+				int slot = hash(old, from) & mask;
+				while (!isZero(keys, slot * width)) {
+					slot = (slot + 1) & mask;
+				}
+				System.arraycopy(old, from, keys, slot * width, width);
+			}
+		}
+	}
+
+	private int hash(long[] array, int offset) {
+		return mix(array, offset, width);
+	}
+
+	/**
+	 * Hashes the key of <tt>width</tt> words starting at <tt>offset</tt>,
+	 * combining the words before spreading the bits with
+	 * <tt>LongHashSet.mix</tt>.
+	 */
+	static int mix(long[] array, int offset, int width) {
+		long h = 0;
+		for (int i = 0; i < width; i++)
+			h = h * 0x9e3779b97f4a7c15L + array[offset + i];
+		return LongHashSet.mix(h);
+	}
+
+	private boolean isZero(long[] array, int offset) {
+		for (int i = 0; i < width; i++)
+			if (array[offset + i] != 0)
+				return false;
+		return true;
+	}
+
+	private boolean equals(long[] array, int offset, long[] key) {
+		for (int i = 0; i < width; i++)
+			if (array[offset + i] != key[i])
+				return false;
+		return true;
+	}
+
+}
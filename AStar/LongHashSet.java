@@ -0,0 +1,136 @@
+package AStar;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive <tt>long</tt> keys using open addressing with linear
+ * probing. It is meant for packed states (see <tt>Puzzle.encodeLong</tt>),
+ * so a visited state costs between eight and sixteen bytes, depending on the
+ * load of the table, instead of a <tt>State</tt> object, its position array
+ * and a hash table entry.
+ * <p>
+ * The key <tt>0</tt> marks an empty slot, so its membership is tracked
+ * separately.
+ */
+public class LongHashSet {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final double MAX_LOAD = 0.5;
+
+	private long[] keys;
+	private int mask;
+	private int size = 0;
+	private int threshold;
+	private boolean containsZero = false;
+
+	public LongHashSet() {
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Constructs a set that can hold <tt>expected</tt> keys before it has to
+	 * grow.
+	 */
+	public LongHashSet(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(2, (int) Math.ceil(expected / MAX_LOAD)) - 1) << 1;
+		allocate(capacity);
+	}
+
+	/**
+	 * Adds the given key and returns <tt>true</tt> if it was not contained
+	 * before.
+	 */
+	public boolean add(long key) {
+		if (key == 0) {
+			if (containsZero) {
+				return false;
+			}
+			containsZero = true;
+			size++;
+			return true;
+		}
+
+		int slot = mix(key) & mask;
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		keys[slot] = key;
+		if (++size >= threshold) {
+			rehash(keys.length * 2);
+		}
+		return true;
+	}
+
+	/** Returns true if and only if the given key is in the set. */
+	public boolean contains(long key) {
+		if (key == 0) {
+			return containsZero;
+		}
+
+		int slot = mix(key) & mask;
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/** Returns the number of keys in the set. */
+	public int size() {
+		return size;
+	}
+
+	/** Returns true if and only if the set holds no keys. */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** Removes all keys, keeping the current capacity. */
+	public void clear() {
+		Arrays.fill(keys, 0L);
+		containsZero = false;
+		size = 0;
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		mask = capacity - 1;
+		threshold = (int) (capacity * MAX_LOAD);
+	}
+
+	private void rehash(int capacity) {
+		long[] old = keys;
+		allocate(capacity);
+
+		for (long key : old) {
+			if (key != 0) {
+				int slot = mix(key) & mask;
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+			}
+		}
+	}
+
+	/**
+	 * Spreads the bits of a packed state, whose low bits alone cluster badly
+	 * (finalizer of the 64 bit MurmurHash3). Other tables keyed by packed
+	 * states should use it as well.
+	 */
+	public static int mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+}
@@ -0,0 +1,73 @@
+package AStar;
+
+/**
+ * A reusable buffer receiving the moves computed by <tt>State.expand</tt>. A
+ * move is stored as the index of the car to be moved and its new variable
+ * position; the successor state itself is only constructed on demand with
+ * <tt>State.move</tt>. One buffer should be kept per search (it is not
+ * thread-safe), so that expanding a node does not allocate anything once the
+ * buffer has grown to the largest branching encountered.
+ */
+public class MoveBuffer {
+
+	private int[] cars = new int[32];
+	private int[] positions = new int[32];
+	private int size = 0;
+
+	private long[] occupancy = new long[1];	// Scratch space for State.expand
+
+	/** Returns the number of moves in the buffer. */
+	public int size() {
+		return size;
+	}
+
+	/** Returns the car moved by move <tt>i</tt>. */
+	public int getCar(int i) {
+		return cars[i];
+	}
+
+	/** Returns the new variable position of the car moved by move <tt>i</tt>. */
+	public int getPosition(int i) {
+		return positions[i];
+	}
+
+	/** Removes all moves from the buffer. */
+	public void clear() {
+		size = 0;
+	}
+
+	/** Appends the move of car <tt>car</tt> to variable position <tt>position</tt>. */
+	public void add(int car, int position) {
+		if (size == cars.length) {
+			int[] newCars = new int[size * 2];
+			int[] newPositions = new int[size * 2];
+			System.arraycopy(cars, 0, newCars, 0, size);
+			System.arraycopy(positions, 0, newPositions, 0, size);
+			cars = newCars;
+			positions = newPositions;
+		}
+
+		cars[size] = car;
+		positions[size] = position;
+		size++;
+	}
+
+	/**
+	 * Returns a cleared bit set able to hold <tt>bits</tt> bits, reusing the
+	 * previous one whenever it is large enough.
+	 */
+	long[] occupancy(int bits) {
+		int words = (bits + 63) >>> 6;
+
+		if (occupancy.length < words) {
+			occupancy = new long[words];
+		} else {
+			for (int i = 0; i < words; i++) {
+				occupancy[i] = 0;
+			}
+		}
+
+		return occupancy;
+	}
+
+}
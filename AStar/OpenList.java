@@ -0,0 +1,52 @@
+package AStar;
+
+/**
+ * This is the interface for the open list used by <tt>AStar</tt>. An open list
+ * holds the nodes that have been generated but not yet expanded, and hands
+ * them out in order of increasing <tt>f</tt> value. Nodes that share the same
+ * <tt>f</tt> value are handed out according to a <tt>TieBreaking</tt> policy,
+ * by default in the order in which they were added (FIFO), which is the order
+ * the original sorted list produced.
+ * <p>
+ * Every implementation keeps an index from <tt>State</tt> to the node holding
+ * it, so that membership tests and the replacement of a node by a better one
+ * (decrease-key) do not require a scan over the whole list. At most one node
+ * per state may be on the list at any time.
+ */
+public interface OpenList {
+
+	/** Adds the given node, whose state must not already be on the list. */
+	public void add(HNode node);
+
+	/**
+	 * Removes and returns the node with the lowest <tt>f</tt> value, or
+	 * <tt>null</tt> if the list is empty.
+	 */
+	public HNode poll();
+
+	/** Returns the node holding the given state, or <tt>null</tt> if none. */
+	public HNode get(State state);
+
+	/** Returns true if and only if a node holding the given state is listed. */
+	public boolean contains(State state);
+
+	/**
+	 * Replaces the node <tt>existing</tt>, which must be on the list, by the
+	 * node <tt>better</tt> holding the same state. The new node is ordered as
+	 * if it had just been added.
+	 */
+	public void replace(HNode existing, HNode better);
+
+	/** Returns the number of nodes on the list. */
+	public int size();
+
+	/** Returns true if and only if the list holds no nodes. */
+	public boolean isEmpty();
+
+	/** Removes all nodes from the list. */
+	public void clear();
+
+	/** Returns the policy by which nodes of equal <tt>f</tt> are ordered. */
+	public TieBreaking getTieBreaking();
+
+}
@@ -0,0 +1,251 @@
+package AStar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class runs a level-synchronous breadth-first search from the initial
+ * state of a puzzle on a fork-join pool. Each layer (the states at one
+ * distance from the initial state) is split into chunks that are expanded in
+ * parallel, and new states are recognized through a
+ * <tt>ConcurrentLongHashSet</tt> of packed states that all threads share.
+ * <p>
+ * Every layer takes two parallel passes. The first expands the chunks of the
+ * current layer and keeps the successors not yet visited in an earlier layer;
+ * the set is only read in this pass. Between the passes, the set is grown to
+ * hold all of these candidates, which is why it never fills up. The second
+ * pass inserts the candidates by compare-and-set, and the successful inserts
+ * form the next layer. The threads share nothing but the set, so the work
+ * scales with the number of cores as long as the layers are large.
+ * <p>
+ * Since a breadth-first search is what A* with <tt>ZeroHeuristic</tt>
+ * amounts to, the first layer holding a goal state gives the optimal solution
+ * depth. The search either stops there or goes on to enumerate all states
+ * reachable from the initial state. Like <tt>DistanceDatabase</tt>, it
+ * requires the states of the puzzle to fit into a single <tt>long</tt>.
+ */
+public class ParallelBFS {
+
+	/** The number of states of a layer expanded by a single task */
+	public static final int CHUNK_SIZE = 1024;
+
+	private Puzzle puzzle;
+	private ConcurrentLongHashSet visited;
+
+	private List<Integer> layerSizes = new ArrayList<Integer>();
+	private int optimalDepth = -1;
+	private long searchCount = 1;	// Nodes generated, including the root
+
+	/**
+	 * Enumerates all states reachable from the initial state of the given
+	 * puzzle, using the common fork-join pool.
+	 */
+	public ParallelBFS(Puzzle puzzle) {
+		this(puzzle, ForkJoinPool.commonPool(), false);
+	}
+
+	/**
+	 * Runs the search on the given pool. If <tt>stopAtGoal</tt> is true, it
+	 * stops after the first layer holding a goal state; otherwise it
+	 * enumerates all reachable states.
+	 */
+	public ParallelBFS(Puzzle puzzle, ForkJoinPool pool, boolean stopAtGoal) {
+		if (!puzzle.fitsInLong())
+			throw new IllegalArgumentException("Puzzle " + puzzle.getName() + " does not fit into a single long");
+
+		this.puzzle = puzzle;
+		this.visited = new ConcurrentLongHashSet(1024);
+
+		long root = puzzle.encodeLong(puzzle.getInitNode().getState());
+		visited.add(root);
+		long[] layer = { root };
+
+		for (int depth = 0; layer.length > 0; depth++) {
+			layerSizes.add(layer.length);
+
+			Expansion expansion = new Expansion(layer);
+			pool.invoke(new Chunks(expansion.candidates.length, expansion::expand));
+
+			if (optimalDepth < 0 && expansion.goal) {
+				optimalDepth = depth;
+				if (stopAtGoal)
+					break;
+			}
+
+			searchCount += expansion.generated();
+			visited.ensureCapacity(visited.size() + expansion.candidateCount());
+
+			Insertion insertion = new Insertion(expansion.candidates);
+			pool.invoke(new Chunks(insertion.added.length, insertion::insert));
+			layer = insertion.layer();
+		}
+	}
+
+	/**
+	 * Returns the number of states in each layer, starting with the layer of
+	 * the initial state. If the search stopped at a goal, the last layer is
+	 * the one holding it.
+	 */
+	public int[] getLayerSizes() {
+		int[] sizes = new int[layerSizes.size()];
+		for (int i = 0; i < sizes.length; i++)
+			sizes[i] = layerSizes.get(i);
+		return sizes;
+	}
+
+	/**
+	 * Returns the length of an optimal solution, or -1 if no goal state is
+	 * reachable.
+	 */
+	public int getOptimalDepth() {
+		return optimalDepth;
+	}
+
+	/** Returns the number of distinct states visited. */
+	public int getStateCount() {
+		return visited.size();
+	}
+
+	/** Returns the number of nodes generated, including the initial node. */
+	public long getSearchCount() {
+		return searchCount;
+	}
+
+	/**
+	 * The first pass over a layer: expands every state and collects the
+	 * successors that were not visited before, one array per chunk.
+	 */
+	private class Expansion {
+		final long[] layer;
+		final long[][] candidates;
+		final int[] generated;
+		volatile boolean goal = false;
+
+		Expansion(long[] layer) {
+			this.layer = layer;
+			int chunks = (layer.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			this.candidates = new long[chunks][];
+			this.generated = new int[chunks];
+		}
+
+		void expand(int chunk) {
+			int from = chunk * CHUNK_SIZE, to = Math.min(layer.length, from + CHUNK_SIZE);
+			MoveBuffer moves = new MoveBuffer();
+			long[] found = new long[4 * (to - from)];
+			int count = 0, total = 0;
+
+			for (int i = from; i < to; i++) {
+				State state = puzzle.decodeLong(layer[i]);
+				if (state.isGoal())
+					goal = true;
+
+				int n = state.expand(moves);
+				total += n;
+
+				for (int m = 0; m < n; m++) {
+					long key = puzzle.encodeLong(state, moves.getCar(m), moves.getPosition(m));
+					if (!visited.contains(key)) {
+						if (count == found.length)
+							found = Arrays.copyOf(found, 2 * count);
+						found[count++] = key;
+					}
+				}
+			}
+
+			candidates[chunk] = Arrays.copyOf(found, count);
+			generated[chunk] = total;
+		}
+
+		long generated() {
+			long total = 0;
+			for (int n : generated)
+				total += n;
+			return total;
+		}
+
+		int candidateCount() {
+			long total = 0;
+			for (long[] c : candidates)
+				total += c.length;
+			return (int) Math.min(Integer.MAX_VALUE, total);
+		}
+	}
+
+	/**
+	 * The second pass over a layer: inserts the candidates and keeps those
+	 * that were new as the next layer.
+	 */
+	private class Insertion {
+		final long[][] candidates;
+		final long[][] added;
+
+		Insertion(long[][] candidates) {
+			this.candidates = candidates;
+			this.added = new long[candidates.length][];
+		}
+
+		void insert(int chunk) {
+			long[] keys = candidates[chunk];
+			long[] fresh = new long[keys.length];
+			int count = 0;
+
+			for (long key : keys)
+				if (visited.add(key))
+					fresh[count++] = key;
+
+			added[chunk] = Arrays.copyOf(fresh, count);
+		}
+
+		long[] layer() {
+			int total = 0;
+			for (long[] a : added)
+				total += a.length;
+
+			long[] layer = new long[total];
+			int offset = 0;
+			for (long[] a : added) {
+				System.arraycopy(a, 0, layer, offset, a.length);
+				offset += a.length;
+			}
+			return layer;
+		}
+	}
+
+	/** Runs a task for every chunk in a range, splitting the range in halves. */
+	private static class Chunks extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		interface Task {
+			void run(int chunk);
+		}
+
+		final int from, to;
+		final Task task;
+
+		Chunks(int count, Task task) {
+			this(0, count, task);
+		}
+
+		Chunks(int from, int to, Task task) {
+			this.from = from;
+			this.to = to;
+			this.task = task;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= 1) {
+				if (from < to)
+					task.run(from);
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+			invokeAll(new Chunks(from, mid, task), new Chunks(mid, to, task));
+		}
+	}
+
+}
@@ -1,7 +1,10 @@
 package AStar;
 
 import java.io.*;
+import java.nio.file.NoSuchFileException;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This is the class for representing a particular rush hour puzzle. Methods are
@@ -9,7 +12,9 @@ import java.util.*;
  * list of puzzles from a data file. In addition, this class maintains a counter
  * of the number of search nodes that have been expanded for this puzzle.
  * Methods for accessing, incrementing or resetting this counter are also
- * provided.
+ * provided. The counter is only advanced by <tt>State.expand()</tt>; searches
+ * such as <tt>AStar</tt> keep their own count, since a counter shared by all
+ * searches on a puzzle cannot serve searches running concurrently.
  * <p>
  * Every car is constrained to only move horizontally or vertically. Therefore,
  * each car has one dimension along which it is fixed, and another dimension
@@ -34,6 +39,17 @@ public class Puzzle {
 
 	private int gridSize;
 
+	private int bitsPerCar;		// Bits needed to pack one variable position
+	private int carsPerWord;	// Variable positions packed into one long
+	private long carMask;
+
+	// Bitboards, only available if the grid has at most 64 cells. Each table
+	// is flat, holding gridSize + 1 entries per car starting at v * stride.
+	private int stride;
+	private long carMasks[];	// Cells covered by car v at variable position p
+	private long cellMasks[];	// Cell at variable position p on the line of car v
+	private long laneMasks[];	// Cells on the line of car v from position p on
+
 	/** Returns the number of cars for this puzzle. */
 	public int getNumCars() {
 		return numCars;
@@ -87,6 +103,282 @@ public class Puzzle {
 		return gridSize;
 	}
 
+	/**
+	 * Returns the number of <tt>long</tt> words a packed state of this puzzle
+	 * occupies. Every variable position is stored in the smallest number of
+	 * bits that can hold <tt>gridSize - 1</tt>, so a 6x6 puzzle needs 3 bits
+	 * per car and fits up to 21 cars into a single word.
+	 */
+	public int getEncodedLength() {
+		return (numCars + carsPerWord - 1) / carsPerWord;
+	}
+
+	/**
+	 * Returns true if and only if every state of this puzzle can be packed
+	 * into a single <tt>long</tt>, i.e., <tt>encodeLong</tt> may be used.
+	 */
+	public boolean fitsInLong() {
+		return numCars <= carsPerWord;
+	}
+
+	/**
+	 * Packs the variable positions of the given state into a single
+	 * <tt>long</tt>, car 0 occupying the lowest bits. Two states of this
+	 * puzzle are equal if and only if their packed values are equal.
+	 */
+	public long encodeLong(State state) {
+		if (!fitsInLong())
+			throw new IllegalStateException("Puzzle " + name + " does not fit into a single long");
+
+		long key = 0;
+		for (int v = numCars - 1; v >= 0; v--)
+			key = (key << bitsPerCar) | state.getVariablePosition(v);
+		return key;
+	}
+
+	/**
+	 * Packs the state that results from moving car <tt>v</tt> of the given
+	 * state to the variable position <tt>position</tt>, without constructing
+	 * that state.
+	 */
+	public long encodeLong(State state, int v, int position) {
+		int shift = v * bitsPerCar;
+		return (encodeLong(state) & ~(carMask << shift)) | ((long) position << shift);
+	}
+
+	/**
+	 * Packs a state of another puzzle, made up of a subset of the cars of this
+	 * one, as a state of this puzzle: car <tt>v</tt> of this puzzle takes the
+	 * variable position of car <tt>cars[v]</tt> of the given state. This is
+	 * used to project states onto abstractions of a puzzle.
+	 */
+	public long encodeProjection(State state, int cars[]) {
+		if (!fitsInLong())
+			throw new IllegalStateException("Puzzle " + name + " does not fit into a single long");
+
+		long key = 0;
+		for (int v = numCars - 1; v >= 0; v--)
+			key = (key << bitsPerCar) | state.getVariablePosition(cars[v]);
+		return key;
+	}
+
+	/**
+	 * Packs the variable positions of the given state into an array of
+	 * <tt>getEncodedLength()</tt> words. This works for any grid size and
+	 * number of cars.
+	 */
+	public long[] encode(State state) {
+		long[] key = new long[getEncodedLength()];
+		encode(state, key);
+		return key;
+	}
+
+	/**
+	 * Packs the variable positions of the given state into the first
+	 * <tt>getEncodedLength()</tt> words of <tt>key</tt>, as <tt>encode</tt>
+	 * does, so that the array can be reused.
+	 */
+	public void encode(State state, long[] key) {
+		Arrays.fill(key, 0, getEncodedLength(), 0L);
+		for (int v = 0; v < numCars; v++)
+			key[v / carsPerWord] |= (long) state.getVariablePosition(v) << ((v % carsPerWord) * bitsPerCar);
+	}
+
+	/**
+	 * Packs the state that results from moving car <tt>v</tt> of the given
+	 * state to the variable position <tt>position</tt> into <tt>key</tt>, in
+	 * the same way as <tt>encode(State, long[])</tt>, without constructing
+	 * that state.
+	 */
+	public void encode(State state, int v, int position, long[] key) {
+		encode(state, key);
+		int shift = (v % carsPerWord) * bitsPerCar;
+		key[v / carsPerWord] = (key[v / carsPerWord] & ~(carMask << shift)) | ((long) position << shift);
+	}
+
+	/** Reconstructs the state packed by <tt>encodeLong</tt>. */
+	public State decodeLong(long key) {
+		int varPos[] = new int[numCars];
+		for (int v = 0; v < numCars; v++) {
+			varPos[v] = (int) (key & carMask);
+			key >>>= bitsPerCar;
+		}
+		return new State(this, varPos);
+	}
+
+	/** Reconstructs the state packed by <tt>encode</tt>. */
+	public State decode(long[] key) {
+		int varPos[] = new int[numCars];
+		for (int v = 0; v < numCars; v++)
+			varPos[v] = (int) ((key[v / carsPerWord] >>> ((v % carsPerWord) * bitsPerCar)) & carMask);
+		return new State(this, varPos);
+	}
+
+	/**
+	 * Returns true if and only if the grid has at most 64 cells, so that a set
+	 * of cells fits into a single <tt>long</tt> bitboard. The cell
+	 * <tt>(x,y)</tt> is represented by the bit <tt>x * gridSize + y</tt>. All
+	 * of the mask methods below require bitboards to be available.
+	 */
+	public boolean hasBitboards() {
+		return carMasks != null;
+	}
+
+	/**
+	 * Returns the bitboard of the cells covered by car <tt>v</tt> at the
+	 * variable position <tt>position</tt>. For the goal car, cells beyond the
+	 * grid (past the exit) are left out.
+	 */
+	public long getCarMask(int v, int position) {
+		return carMasks[v * stride + position];
+	}
+
+	/**
+	 * Returns the bitboard of the single cell at variable position
+	 * <tt>position</tt> on the line along which car <tt>v</tt> moves.
+	 */
+	public long getCellMask(int v, int position) {
+		return cellMasks[v * stride + position];
+	}
+
+	/**
+	 * Returns the bitboard of all cells on the line along which car <tt>v</tt>
+	 * moves, from the variable position <tt>position</tt> up to the edge of
+	 * the grid. <tt>position</tt> may range up to <tt>gridSize</tt>, which
+	 * yields the empty set.
+	 */
+	public long getLaneMask(int v, int position) {
+		return laneMasks[v * stride + position];
+	}
+
+	/** Returns the index of a cell given in fixed and variable coordinates. */
+	static int cellIndex(boolean orient, int fp, int vp, int gridSize) {
+		return orient ? fp * gridSize + vp : vp * gridSize + fp;
+	}
+
+	private void computeBitboards() {
+		stride = gridSize + 1;
+		carMasks = new long[numCars * stride];
+		cellMasks = new long[numCars * stride];
+		laneMasks = new long[numCars * stride];
+
+		for (int v = 0; v < numCars; v++) {
+			int base = v * stride;
+
+			for (int p = 0; p < gridSize; p++)
+				cellMasks[base + p] = 1L << cellIndex(carOrient[v], fixedPos[v], p, gridSize);
+
+			for (int p = gridSize - 1; p >= 0; p--)
+				laneMasks[base + p] = laneMasks[base + p + 1] | cellMasks[base + p];
+
+			for (int p = 0; p < gridSize; p++)
+				for (int d = 0; d < carSize[v] && p + d < gridSize; d++)
+					carMasks[base + p] |= cellMasks[base + p + d];
+		}
+	}
+
+	/**
+	 * Returns a 64 bit signature of the static layout of this puzzle: the grid
+	 * size and the number, sizes, orientations and fixed positions of the
+	 * cars (FNV-1a hash). Puzzles with the same layout share the same packed
+	 * state encoding, so the signature identifies precomputed tables that
+	 * may be used with this puzzle, whatever its initial positions are.
+	 */
+	public long getLayoutSignature() {
+		long hash = 0xcbf29ce484222325L;
+		hash = (hash ^ gridSize) * 0x100000001b3L;
+		hash = (hash ^ numCars) * 0x100000001b3L;
+		for (int v = 0; v < numCars; v++) {
+			hash = (hash ^ (carOrient[v] ? 1 : 0)) * 0x100000001b3L;
+			hash = (hash ^ carSize[v]) * 0x100000001b3L;
+			hash = (hash ^ fixedPos[v]) * 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * Enumerates the goal states that may be reachable from the initial state
+	 * and returns them as an array. These are the states in which the goal
+	 * car has reached the exit and the other cars are placed anywhere within
+	 * the grid without overlapping, except that cars sharing a line keep the
+	 * order they have in the initial state, since they can never pass each
+	 * other. The number of such states grows quickly with the number of cars,
+	 * but stays in the tens of thousands for 6x6 puzzles.
+	 */
+	public State[] getGoalStates() {
+		return getGoalStates(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Enumerates the goal states like <tt>getGoalStates()</tt>, but gives up
+	 * and returns <tt>null</tt> as soon as there are more than
+	 * <tt>limit</tt> of them. On larger grids, their number quickly exceeds
+	 * the number of states actually reachable.
+	 */
+	public State[] getGoalStates(int limit) {
+		ArrayList<State> goals = new ArrayList<State>();
+		int varPos[] = new int[numCars];
+		long occupied[] = new long[(gridSize * gridSize + 63) >>> 6];
+
+		varPos[0] = gridSize - 1;
+		setOccupied(occupied, 0, varPos[0], true);
+		if (!placeCars(1, varPos, occupied, goals, limit))
+			return null;
+
+		return goals.toArray(new State[0]);
+	}
+
+	/** Returns false if more than <tt>limit</tt> goal states were found. */
+	private boolean placeCars(int v, int varPos[], long occupied[], ArrayList<State> goals, int limit) {
+		if (v == numCars) {
+			goals.add(new State(this, varPos.clone()));
+			return goals.size() <= limit;
+		}
+
+		State init = initNode.getState();
+
+		for (int p = 0; p + carSize[v] <= gridSize; p++) {
+			if (isOccupied(occupied, v, p))
+				continue;
+
+			boolean keepsOrder = true;
+			for (int u = 0; u < v && keepsOrder; u++)
+				if (carOrient[u] == carOrient[v] && fixedPos[u] == fixedPos[v])
+					keepsOrder = (init.getVariablePosition(u) < init.getVariablePosition(v)) == (varPos[u] < p);
+
+			if (!keepsOrder)
+				continue;
+
+			varPos[v] = p;
+			setOccupied(occupied, v, p, true);
+			boolean withinLimit = placeCars(v + 1, varPos, occupied, goals, limit);
+			setOccupied(occupied, v, p, false);
+
+			if (!withinLimit)
+				return false;
+		}
+		return true;
+	}
+
+	private boolean isOccupied(long occupied[], int v, int p) {
+		for (int d = 0; d < carSize[v] && p + d < gridSize; d++) {
+			int cell = cellIndex(carOrient[v], fixedPos[v], p + d, gridSize);
+			if ((occupied[cell >>> 6] & (1L << cell)) != 0)
+				return true;
+		}
+		return false;
+	}
+
+	private void setOccupied(long occupied[], int v, int p, boolean value) {
+		for (int d = 0; d < carSize[v] && p + d < gridSize; d++) {
+			int cell = cellIndex(carOrient[v], fixedPos[v], p + d, gridSize);
+			if (value)
+				occupied[cell >>> 6] |= 1L << cell;
+			else
+				occupied[cell >>> 6] &= ~(1L << cell);
+		}
+	}
+
 	/** Returns the initial (root) node of this puzzle. */
 	public Node getInitNode() {
 		return initNode;
@@ -126,7 +418,7 @@ public class Puzzle {
 		fixedPos = new int[numCars];
 		int varPos[] = new int[numCars];
 
-		boolean grid[][] = new boolean[gridSize][gridSize];
+		boolean grid[] = new boolean[gridSize * gridSize];
 
 		for (int v = 0; v < numCars; v++) {
 			carOrient[v] = orient[v];
@@ -134,8 +426,8 @@ public class Puzzle {
 			if (size[v] <= 0)
 				throw new IllegalArgumentException("Cars must have positive size");
 
-			if (x[v] < 0 || y[v] < 0 || (orient[v] && y[v] + size[v] > gridSize)
-					|| (!orient[v] && x[v] + size[v] > gridSize))
+			if (x[v] < 0 || y[v] < 0 || (orient[v] && (x[v] >= gridSize || y[v] + size[v] > gridSize))
+					|| (!orient[v] && (y[v] >= gridSize || x[v] + size[v] > gridSize)))
 				throw new IllegalArgumentException("Cars must be within bounds of grid");
 
 			for (int d = 0; d < size[v]; d++) {
@@ -144,9 +436,9 @@ public class Puzzle {
 					yv += d;
 				else
 					xv += d;
-				if (grid[xv][yv])
+				if (grid[xv * gridSize + yv])
 					throw new IllegalArgumentException("Cars cannot overlap");
-				grid[xv][yv] = true;
+				grid[xv * gridSize + yv] = true;
 			}
 
 			if (orient[v]) {
@@ -159,6 +451,13 @@ public class Puzzle {
 
 		}
 
+		bitsPerCar = Math.max(1, 32 - Integer.numberOfLeadingZeros(gridSize - 1));
+		carsPerWord = 64 / bitsPerCar;
+		carMask = (1L << bitsPerCar) - 1;
+
+		if (gridSize * gridSize <= 64)
+			computeBitboards();
+
 		initNode = new Node(new State(this, varPos), 0, null);
 
 		resetSearchCount();
@@ -171,115 +470,43 @@ public class Puzzle {
 	 * an array of <tt>Puzzle</tt>'s.
 	 */
 	public static Puzzle[] readPuzzlesFromFile(String filename) throws FileNotFoundException, IOException {
+		ArrayList<Puzzle> puzzles = new ArrayList<Puzzle>();
 
-		BufferedReader in = new BufferedReader(new FileReader(filename));
-
-		ArrayList puzzles = new ArrayList();
-		ArrayList car_list = null;
-
-		String name = null;
-		String line;
-		String[] words = null;
-
-		int read_mode = 0;
-		int line_count = 0;
-		int gridsize = 0;
-
-		while ((line = in.readLine()) != null) {
-			line_count++;
-			line = line.trim();
-			words = line.split("\\s+");
-			if (line.equals(""))
-				continue;
-
-			if (read_mode == 0) { // reading name
-				name = line;
-				car_list = new ArrayList();
-				read_mode = 1;
-			} else if (read_mode == 1) { // reading grid size
-				if (words.length != 1)
-					throw new RuntimeException(
-							"Expected single integer for grid size at line " + line_count + " in file " + filename);
-				try {
-					gridsize = Integer.parseInt(words[0]);
-				} catch (NumberFormatException e) {
-					throw new NumberFormatException(
-							"Expected integer grid size at line " + line_count + " in file " + filename);
-				}
-				if (gridsize <= 0)
-					throw new RuntimeException(
-							"Expected positive grid size at line " + line_count + " in file " + filename);
-
-				read_mode = 2;
-			} else if (line.equals(".")) { // end of puzzle description
-				int numcars = car_list.size();
-				boolean orient[] = new boolean[numcars];
-				int size[] = new int[numcars];
-				int x[] = new int[numcars];
-				int y[] = new int[numcars];
-
-				for (int v = 0; v < numcars; v++) {
-					CarRec carrec = (CarRec) car_list.get(v);
-					orient[v] = carrec.orient;
-					size[v] = carrec.size;
-					x[v] = carrec.x;
-					y[v] = carrec.y;
-				}
-
-				puzzles.add(new Puzzle(name, gridsize, numcars, orient, size, x, y));
-				read_mode = 0;
-			} else {
-				CarRec carrec = new CarRec();
-
-				if (words.length != 4) {
-					throw new RuntimeException(
-							"Expected four arguments at line " + line_count + " in file " + filename);
-				}
-
-				try {
-					carrec.x = Integer.parseInt(words[0]);
-				} catch (NumberFormatException e) {
-					throw new NumberFormatException(
-							"Expected integer x-coordinate at line " + line_count + " in file " + filename);
-				}
-
-				try {
-					carrec.y = Integer.parseInt(words[1]);
-				} catch (NumberFormatException e) {
-					throw new NumberFormatException(
-							"Expected integer y-coordinate at line " + line_count + " in file " + filename);
-				}
-
-				String o = words[2].toLowerCase();
-
-				if (!o.equals("v") && !o.equals("h")) {
-					throw new RuntimeException(
-							"Expected orientation to be 'v' or 'h' at line " + line_count + " in file " + filename);
-				}
-				carrec.orient = o.equals("v");
-
-				try {
-					carrec.size = Integer.parseInt(words[3]);
-				} catch (NumberFormatException e) {
-					throw new NumberFormatException(
-							"Expected integer car size at line " + line_count + " in file " + filename);
-				}
-
-				car_list.add(carrec);
-			}
+		try (PuzzleReader reader = openReader(filename)) {
+			while (reader.hasNext())
+				puzzles.add(reader.next());
 		}
 
-		if (read_mode != 0)
-			throw new RuntimeException("Puzzle description ended prematurely in file " + filename);
+		return puzzles.toArray(new Puzzle[0]);
+	}
 
-		return (Puzzle[]) puzzles.toArray(new Puzzle[0]);
+	/**
+	 * Returns a lazily read stream of the puzzles in the data file called
+	 * <tt>filename</tt>. Every puzzle is read only when the stream gets to it,
+	 * so the first puzzle is available at once and memory use does not depend
+	 * on the size of the file. The stream should be closed after use, which
+	 * closes the file.
+	 */
+	public static Stream<Puzzle> streamPuzzlesFromFile(String filename) throws FileNotFoundException, IOException {
+		PuzzleReader reader = openReader(filename);
+		Spliterator<Puzzle> spliterator = Spliterators.spliteratorUnknownSize(reader,
+				Spliterator.ORDERED | Spliterator.NONNULL);
+
+		return StreamSupport.stream(spliterator, false).onClose(() -> {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
 	}
 
-	private static class CarRec {
-		boolean orient;
-		int size;
-		int x;
-		int y;
+	private static PuzzleReader openReader(String filename) throws FileNotFoundException, IOException {
+		try {
+			return new PuzzleReader(filename);
+		} catch (NoSuchFileException e) {
+			throw new FileNotFoundException(filename + " (No such file or directory)");
+		}
 	}
 
 }
@@ -0,0 +1,281 @@
+package AStar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class reads puzzles one at a time from a data file in the format of
+ * <tt>Puzzle.readPuzzlesFromFile</tt>. The file is read through a buffered
+ * channel and every line is tokenized and parsed by hand, so only the current
+ * line and the puzzle being read are held in memory, however large the file
+ * is. Malformed input is reported with the same messages and line numbers as
+ * by <tt>Puzzle.readPuzzlesFromFile</tt>; I/O errors during iteration are
+ * wrapped in an <tt>UncheckedIOException</tt>.
+ */
+public class PuzzleReader implements Iterator<Puzzle>, Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final String filename;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private boolean endOfFile = false;
+
+	private byte[] line = new byte[256];
+	private int lineLength;
+	private int lineCount = 0;
+	private boolean skipLineFeed = false;	// The last line ended with '\r'
+
+	private int[] tokenStart = new int[8];
+	private int[] tokenEnd = new int[8];
+	private int tokens;
+
+	private Puzzle next;
+
+	// Cars of the puzzle being read
+	private boolean[] orient = new boolean[16];
+	private int[] size = new int[16];
+	private int[] x = new int[16];
+	private int[] y = new int[16];
+
+	/** Opens the data file called <tt>filename</tt> for reading. */
+	public PuzzleReader(String filename) throws IOException {
+		this.filename = filename;
+		this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+		this.buffer.flip();
+	}
+
+	/** Returns true if and only if another puzzle follows in the file. */
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			try {
+				next = readPuzzle();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return next != null;
+	}
+
+	/** Returns the next puzzle of the file. */
+	@Override
+	public Puzzle next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		Puzzle puzzle = next;
+		next = null;
+		return puzzle;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Reads the next puzzle description, or returns <tt>null</tt> at the end
+	 * of the file.
+	 */
+	private Puzzle readPuzzle() throws IOException {
+		String name = null;
+		int gridsize = 0;
+		int numcars = 0;
+		int read_mode = 0;
+
+		while (readLine()) {
+			tokenize();
+			if (tokens == 0)
+				continue;
+
+			if (read_mode == 0) { // reading name
+				name = new String(line, tokenStart[0], tokenEnd[tokens - 1] - tokenStart[0], StandardCharsets.UTF_8);
+				numcars = 0;
+				read_mode = 1;
+			} else if (read_mode == 1) { // reading grid size
+				if (tokens != 1)
+					throw new RuntimeException(
+							"Expected single integer for grid size at line " + lineCount + " in file " + filename);
+				try {
+					gridsize = parseInt(0);
+				} catch (NumberFormatException e) {
+					throw new NumberFormatException(
+							"Expected integer grid size at line " + lineCount + " in file " + filename);
+				}
+				if (gridsize <= 0)
+					throw new RuntimeException(
+							"Expected positive grid size at line " + lineCount + " in file " + filename);
+
+				read_mode = 2;
+			} else if (tokens == 1 && tokenEnd[0] - tokenStart[0] == 1 && line[tokenStart[0]] == '.') {
+				// end of puzzle description
+				return new Puzzle(name, gridsize, numcars, Arrays.copyOf(orient, numcars),
+						Arrays.copyOf(size, numcars), Arrays.copyOf(x, numcars), Arrays.copyOf(y, numcars));
+			} else {
+				if (tokens != 4) {
+					throw new RuntimeException(
+							"Expected four arguments at line " + lineCount + " in file " + filename);
+				}
+
+				if (numcars == orient.length) {
+					orient = Arrays.copyOf(orient, numcars * 2);
+					size = Arrays.copyOf(size, numcars * 2);
+					x = Arrays.copyOf(x, numcars * 2);
+					y = Arrays.copyOf(y, numcars * 2);
+				}
+
+				try {
+					x[numcars] = parseInt(0);
+				} catch (NumberFormatException e) {
+					throw new NumberFormatException(
+							"Expected integer x-coordinate at line " + lineCount + " in file " + filename);
+				}
+
+				try {
+					y[numcars] = parseInt(1);
+				} catch (NumberFormatException e) {
+					throw new NumberFormatException(
+							"Expected integer y-coordinate at line " + lineCount + " in file " + filename);
+				}
+
+				int o = tokenEnd[2] - tokenStart[2] == 1 ? line[tokenStart[2]] | 0x20 : 0;
+
+				if (o != 'v' && o != 'h') {
+					throw new RuntimeException(
+							"Expected orientation to be 'v' or 'h' at line " + lineCount + " in file " + filename);
+				}
+				orient[numcars] = o == 'v';
+
+				try {
+					size[numcars] = parseInt(3);
+				} catch (NumberFormatException e) {
+					throw new NumberFormatException(
+							"Expected integer car size at line " + lineCount + " in file " + filename);
+				}
+
+				numcars++;
+			}
+		}
+
+		if (read_mode != 0)
+			throw new RuntimeException("Puzzle description ended prematurely in file " + filename);
+
+		return null;
+	}
+
+	/**
+	 * Reads the next line into <tt>line</tt>, without its terminator, which
+	 * is <tt>'\n'</tt>, <tt>'\r'</tt> or <tt>"\r\n"</tt> as for
+	 * <tt>BufferedReader.readLine</tt>. Returns false at the end of the file.
+	 */
+	private boolean readLine() throws IOException {
+		lineLength = 0;
+		boolean read = false;
+
+		while (true) {
+			if (!buffer.hasRemaining() && (endOfFile || !fill())) {
+				if (read)
+					lineCount++; // The last line has no terminator
+				return read;
+			}
+
+			byte b = buffer.get();
+			if (skipLineFeed) {
+				skipLineFeed = false;
+				if (b == '\n')
+					continue;
+			}
+
+			read = true;
+			if (b == '\n' || b == '\r') {
+				skipLineFeed = b == '\r';
+				lineCount++;
+				return true;
+			}
+
+			if (lineLength == line.length)
+				line = Arrays.copyOf(line, lineLength * 2);
+			line[lineLength++] = b;
+		}
+	}
+
+	private boolean fill() throws IOException {
+		buffer.clear();
+		int n;
+		do {
+			n = channel.read(buffer);
+		} while (n == 0);
+		buffer.flip();
+
+		if (n < 0) {
+			endOfFile = true;
+			return false;
+		}
+		return true;
+	}
+
+	/** Splits the current line at whitespace (any character up to a blank). */
+	private void tokenize() {
+		tokens = 0;
+		int i = 0;
+
+		while (i < lineLength) {
+			while (i < lineLength && (line[i] & 0xff) <= ' ')
+				i++;
+			if (i == lineLength)
+				break;
+
+			if (tokens == tokenStart.length) {
+				tokenStart = Arrays.copyOf(tokenStart, tokens * 2);
+				tokenEnd = Arrays.copyOf(tokenEnd, tokens * 2);
+			}
+			tokenStart[tokens] = i;
+			while (i < lineLength && (line[i] & 0xff) > ' ')
+				i++;
+			tokenEnd[tokens++] = i;
+		}
+	}
+
+	/**
+	 * Parses token <tt>t</tt> as a decimal integer, following the rules of
+	 * <tt>Integer.parseInt</tt>.
+	 */
+	private int parseInt(int t) {
+		int i = tokenStart[t], end = tokenEnd[t];
+		boolean negative = false;
+
+		if (line[i] == '-' || line[i] == '+') {
+			negative = line[i] == '-';
+			i++;
+		}
+		if (i == end)
+			throw new NumberFormatException();
+
+		long value = 0;
+		for (; i < end; i++) {
+			int digit = line[i] - '0';
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException();
+			value = value * 10 + digit;
+			if (value > (long) Integer.MAX_VALUE + 1)
+				throw new NumberFormatException();
+		}
+
+		if (negative)
+			value = -value;
+		if (value > Integer.MAX_VALUE)
+			throw new NumberFormatException();
+		return (int) value;
+	}
+
+}
@@ -0,0 +1,73 @@
+package AStar;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class writes puzzles one at a time in the text format read by
+ * <tt>Puzzle.readPuzzlesFromFile</tt> and <tt>PuzzleReader</tt>: the name,
+ * the grid size, one line <tt>x y h|v size</tt> per car (the goal car first)
+ * and a line holding a single period.
+ */
+public class PuzzleWriter implements Closeable, Flushable {
+
+	private final Writer out;
+
+	/** Creates (or truncates) the data file <tt>path</tt> for writing. */
+	public PuzzleWriter(Path path) throws IOException {
+		this(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+	}
+
+	/** Writes to the given writer, which is closed with this one. */
+	public PuzzleWriter(Writer out) {
+		this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+	}
+
+	/** Writes the given puzzle with its initial state. */
+	public void write(Puzzle puzzle) throws IOException {
+		write(puzzle.getName(), puzzle.getInitNode().getState());
+	}
+
+	/**
+	 * Writes a puzzle called <tt>name</tt> whose cars are those of the puzzle
+	 * of <tt>state</tt>, placed as in <tt>state</tt>.
+	 */
+	public void write(String name, State state) throws IOException {
+		Puzzle puzzle = state.getPuzzle();
+		StringBuilder text = new StringBuilder(16 + 12 * puzzle.getNumCars());
+
+		text.append(name).append('\n');
+		text.append(puzzle.getGridSize()).append('\n');
+
+		for (int v = 0; v < puzzle.getNumCars(); v++) {
+			boolean orient = puzzle.getCarOrient(v);
+			int fixed = puzzle.getFixedPosition(v);
+			int variable = state.getVariablePosition(v);
+
+			text.append(orient ? fixed : variable).append(' ');
+			text.append(orient ? variable : fixed).append(' ');
+			text.append(orient ? 'v' : 'h').append(' ');
+			text.append(puzzle.getCarSize(v)).append('\n');
+		}
+
+		text.append(".\n");
+		out.write(text.toString());
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+}
@@ -0,0 +1,90 @@
+package AStar;
+
+/**
+ * This class bounds the resources a search may use: the number of nodes it
+ * expands, the number of states it holds at once (open and closed, as an
+ * estimate of its memory), and its running time, given either as a limit per
+ * search or as a deadline. All limits are unlimited by default; the setters
+ * return the budget itself, so that they can be chained:
+ * <pre>
+ *   new SearchBudget().setMaxExpandedNodes(100000).setTimeLimit(50)
+ * </pre>
+ * A budget also allows to cancel the searches using it from another thread.
+ * Searches check their budget once per expanded node and stop with the
+ * corresponding <tt>SearchStatus</tt>; an interrupt of the searching thread
+ * is treated like a cancellation.
+ */
+public class SearchBudget {
+
+	private long maxExpandedNodes = Long.MAX_VALUE;
+	private long maxStatesHeld = Long.MAX_VALUE;
+	private long timeLimit = Long.MAX_VALUE;	// Nanoseconds per search
+	private long deadline;						// System.nanoTime() value
+	private boolean hasDeadline = false;
+	private volatile boolean cancelled = false;
+
+	/** Limits the number of nodes a search may expand. */
+	public SearchBudget setMaxExpandedNodes(long maxExpandedNodes) {
+		if (maxExpandedNodes < 0)
+			throw new IllegalArgumentException("Node limit must not be negative");
+		this.maxExpandedNodes = maxExpandedNodes;
+		return this;
+	}
+
+	/**
+	 * Limits the number of states a search may hold at once, i.e., the size
+	 * of its open list and closed set together.
+	 */
+	public SearchBudget setMaxStatesHeld(long maxStatesHeld) {
+		if (maxStatesHeld < 0)
+			throw new IllegalArgumentException("Memory limit must not be negative");
+		this.maxStatesHeld = maxStatesHeld;
+		return this;
+	}
+
+	/** Limits the running time of every search to the given milliseconds. */
+	public SearchBudget setTimeLimit(long millis) {
+		if (millis < 0)
+			throw new IllegalArgumentException("Time limit must not be negative");
+		this.timeLimit = millis >= Long.MAX_VALUE / 1000000 ? Long.MAX_VALUE : millis * 1000000;
+		return this;
+	}
+
+	/**
+	 * Sets a deadline, given as a value of <tt>System.nanoTime()</tt>, after
+	 * which all searches stop.
+	 */
+	public SearchBudget setDeadline(long nanoTime) {
+		this.deadline = nanoTime;
+		this.hasDeadline = true;
+		return this;
+	}
+
+	/** Asks all searches using this budget to stop as soon as possible. */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/** Returns true if and only if this budget has been cancelled. */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Checks the budget for a search that started at <tt>startTime</tt>,
+	 * returning the status it should stop with, or <tt>null</tt> if it may
+	 * go on. <tt>now</tt> is the current value of <tt>System.nanoTime()</tt>.
+	 */
+	SearchStatus check(long expanded, long statesHeld, long startTime, long now) {
+		if (cancelled || Thread.currentThread().isInterrupted())
+			return SearchStatus.CANCELLED;
+		if (expanded >= maxExpandedNodes)
+			return SearchStatus.NODE_LIMIT;
+		if (statesHeld >= maxStatesHeld)
+			return SearchStatus.MEMORY_LIMIT;
+		if (now - startTime >= timeLimit || (hasDeadline && now - deadline >= 0))
+			return SearchStatus.TIME_LIMIT;
+		return null;
+	}
+
+}
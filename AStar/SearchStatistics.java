@@ -0,0 +1,115 @@
+package AStar;
+
+import java.util.Locale;
+
+/**
+ * This class collects the statistics of a single search: how many nodes were
+ * generated, expanded and pruned, how large the open and closed lists grew,
+ * and where the time went. All times are measured with
+ * <tt>System.nanoTime</tt> and reported in nanoseconds. Heuristic time covers
+ * the calls of <tt>Heuristic.getValue</tt>; expansion time covers generating
+ * the successors of expanded nodes, checking them for duplicates and adding
+ * them to the open list, without the heuristic time; wall time covers the
+ * whole search.
+ * <p>
+ * The statistics can be exported as a JSON object or as a CSV line matching
+ * <tt>csvHeader()</tt>.
+ */
+public class SearchStatistics {
+
+	long generated;			// Nodes generated, including the root
+	long expanded;			// Nodes taken off the open list and expanded
+	long duplicates;		// Successors dropped as already closed or not better
+	long reopenings;		// Open or closed states reached on a better path
+	long evaluations;		// Calls of the heuristic
+	int peakOpen;
+	int peakClosed;
+	long heuristicTime;
+	long expansionTime;
+	long wallTime;
+
+	/** Returns the number of nodes generated, including the initial node. */
+	public long getNodesGenerated() {
+		return generated;
+	}
+
+	/** Returns the number of nodes expanded. */
+	public long getNodesExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Returns the number of generated nodes that were dropped because their
+	 * state was closed already, or open with a path that is at least as good.
+	 */
+	public long getDuplicatesPruned() {
+		return duplicates;
+	}
+
+	/**
+	 * Returns the number of open nodes that were replaced, and of closed
+	 * states that were reopened, because a better path to their state was
+	 * found.
+	 */
+	public long getReopenings() {
+		return reopenings;
+	}
+
+	/** Returns the number of heuristic evaluations. */
+	public long getHeuristicEvaluations() {
+		return evaluations;
+	}
+
+	/** Returns the largest number of nodes on the open list at any time. */
+	public int getPeakOpenSize() {
+		return peakOpen;
+	}
+
+	/** Returns the largest number of states in the closed set at any time. */
+	public int getPeakClosedSize() {
+		return peakClosed;
+	}
+
+	/** Returns the time spent evaluating the heuristic, in nanoseconds. */
+	public long getHeuristicTime() {
+		return heuristicTime;
+	}
+
+	/** Returns the time spent expanding nodes, in nanoseconds. */
+	public long getExpansionTime() {
+		return expansionTime;
+	}
+
+	/** Returns the duration of the whole search, in nanoseconds. */
+	public long getWallTime() {
+		return wallTime;
+	}
+
+	/** Returns the names of the values of <tt>toCsv()</tt>, comma separated. */
+	public static String csvHeader() {
+		return "generated,expanded,duplicatesPruned,reopenings,heuristicEvaluations,peakOpen,peakClosed,"
+				+ "heuristicTimeNanos,expansionTimeNanos,wallTimeNanos";
+	}
+
+	/** Returns the statistics as a line of comma separated values. */
+	public String toCsv() {
+		return generated + "," + expanded + "," + duplicates + "," + reopenings + "," + evaluations + ","
+				+ peakOpen + "," + peakClosed + "," + heuristicTime + "," + expansionTime + "," + wallTime;
+	}
+
+	/** Returns the statistics as a JSON object. */
+	public String toJson() {
+		return String.format(Locale.ROOT,
+				"{\"generated\":%d,\"expanded\":%d,\"duplicatesPruned\":%d,\"reopenings\":%d,"
+						+ "\"heuristicEvaluations\":%d,\"peakOpen\":%d,\"peakClosed\":%d,"
+						+ "\"heuristicTimeNanos\":%d,\"expansionTimeNanos\":%d,\"wallTimeNanos\":%d}",
+				generated, expanded, duplicates, reopenings, evaluations, peakOpen, peakClosed, heuristicTime,
+				expansionTime, wallTime);
+	}
+
+	@Override
+	public String toString() {
+		return toJson();
+	}
+
+}
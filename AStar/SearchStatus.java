@@ -0,0 +1,41 @@
+package AStar;
+
+/**
+ * The outcome of a search that may be bounded by a <tt>SearchBudget</tt>.
+ */
+public enum SearchStatus {
+
+	/** A solution was found */
+	SOLVED(false),
+
+	/** The search space was exhausted without reaching a goal state */
+	UNSOLVABLE(false),
+
+	/** The maximum number of expanded nodes was reached */
+	NODE_LIMIT(true),
+
+	/** The maximum number of states held by the search was reached */
+	MEMORY_LIMIT(true),
+
+	/** The time limit or deadline passed */
+	TIME_LIMIT(true),
+
+	/** The search was cancelled, or its thread was interrupted */
+	CANCELLED(false);
+
+	private final boolean budgetExhausted;
+
+	private SearchStatus(boolean budgetExhausted) {
+		this.budgetExhausted = budgetExhausted;
+	}
+
+	/**
+	 * Returns true if and only if the search stopped because one of the
+	 * limits of its budget was reached, so it is unknown whether the puzzle
+	 * can be solved.
+	 */
+	public boolean isBudgetExhausted() {
+		return budgetExhausted;
+	}
+
+}
@@ -1,7 +1,5 @@
 package AStar;
 
-import java.util.*;
-
 /**
  * This is the class for representing a single state of the rush hour puzzle.
  * Methods are provided for constructing a state, for accessing information
@@ -144,34 +142,119 @@ public class State {
 	 * <tt>Node</tt>s, not <tt>State</tt>s.
 	 */
 	public State[] expand() {
+		MoveBuffer moves = new MoveBuffer();
+		int count = expand(moves);
+
+		puzzle.incrementSearchCount(count);
+
+		State[] new_states = new State[count];
+		for (int i = 0; i < count; i++)
+			new_states[i] = move(moves.getCar(i), moves.getPosition(i));
+
+		return new_states;
+	}
+
+	/**
+	 * Computes all of the moves possible in this state and writes them into
+	 * the given buffer, replacing its previous contents. The moves are listed
+	 * in the same order as the states returned by <tt>expand()</tt>. Unlike
+	 * <tt>expand()</tt>, this method leaves the search counter of the puzzle
+	 * alone, so that several searches may run on the same puzzle at once; the
+	 * caller counts the generated nodes itself. Apart from the buffer growing
+	 * to its working size, nothing is allocated.
+	 *
+	 * @return the number of moves written to the buffer
+	 */
+	public int expand(MoveBuffer moves) {
+		if (puzzle.hasBitboards())
+			return expandBitboard(moves);
+
 		int gridsize = puzzle.getGridSize();
-		int grid[][] = getGrid();
 		int num_cars = puzzle.getNumCars();
+		long occupied[] = moves.occupancy(gridsize * gridsize);
 
-		ArrayList new_states = new ArrayList();
+		for (int v = 0; v < num_cars; v++) {
+			boolean orient = puzzle.getCarOrient(v);
+			int size = puzzle.getCarSize(v);
+			int fp = puzzle.getFixedPosition(v);
+			if (v == 0 && varPos[v] + size > gridsize)
+				size--;
+			for (int d = 0; d < size; d++) {
+				int cell = Puzzle.cellIndex(orient, fp, varPos[v] + d, gridsize);
+				occupied[cell >>> 6] |= 1L << cell;
+			}
+		}
+
+		moves.clear();
 
 		for (int v = 0; v < num_cars; v++) {
 			int p = varPos[v];
 			int fp = puzzle.getFixedPosition(v);
 			boolean orient = puzzle.getCarOrient(v);
-			for (int np = p - 1; np >= 0 && (orient ? grid[fp][np] : grid[np][fp]) < 0; np--) {
-				int[] newVarPos = (int[]) varPos.clone();
-				newVarPos[v] = np;
-				new_states.add(new State(puzzle, newVarPos));
+			for (int np = p - 1; np >= 0 && !isOccupied(occupied, Puzzle.cellIndex(orient, fp, np, gridsize)); np--) {
+				moves.add(v, np);
+			}
+
+			int carsize = puzzle.getCarSize(v);
+			for (int np = p + carsize; (np < gridsize && !isOccupied(occupied, Puzzle.cellIndex(orient, fp, np, gridsize)))
+					|| (v == 0 && np == gridsize); np++) {
+				moves.add(v, np - carsize + 1);
+			}
+		}
+
+		return moves.size();
+	}
+
+	/**
+	 * Move generation for grids of at most 64 cells: every car slides along
+	 * its line as long as the next cell is clear in the occupancy bitboard.
+	 */
+	private int expandBitboard(MoveBuffer moves) {
+		int gridsize = puzzle.getGridSize();
+		int num_cars = puzzle.getNumCars();
+		long occupied = getOccupancy();
+
+		moves.clear();
+
+		for (int v = 0; v < num_cars; v++) {
+			int p = varPos[v];
+			for (int np = p - 1; np >= 0 && (occupied & puzzle.getCellMask(v, np)) == 0; np--) {
+				moves.add(v, np);
 			}
 
 			int carsize = puzzle.getCarSize(v);
-			for (int np = p + carsize; (np < gridsize && (orient ? grid[fp][np] : grid[np][fp]) < 0)
+			for (int np = p + carsize; (np < gridsize && (occupied & puzzle.getCellMask(v, np)) == 0)
 					|| (v == 0 && np == gridsize); np++) {
-				int[] newVarPos = (int[]) varPos.clone();
-				newVarPos[v] = np - carsize + 1;
-				new_states.add(new State(puzzle, newVarPos));
+				moves.add(v, np - carsize + 1);
 			}
 		}
 
-		puzzle.incrementSearchCount(new_states.size());
+		return moves.size();
+	}
+
+	/**
+	 * Returns the bitboard of all cells occupied in this state (see
+	 * <tt>Puzzle.hasBitboards</tt>, which must hold for this puzzle).
+	 */
+	public long getOccupancy() {
+		long occupied = 0;
+		for (int v = 0; v < varPos.length; v++)
+			occupied |= puzzle.getCarMask(v, varPos[v]);
+		return occupied;
+	}
+
+	/**
+	 * Returns the state that results from moving car <tt>v</tt> of this
+	 * state to the variable position <tt>position</tt>.
+	 */
+	public State move(int v, int position) {
+		int[] newVarPos = varPos.clone();
+		newVarPos[v] = position;
+		return new State(puzzle, newVarPos);
+	}
 
-		return (State[]) new_states.toArray(new State[0]);
+	private static boolean isOccupied(long occupied[], int cell) {
+		return (occupied[cell >>> 6] & (1L << cell)) != 0;
 	}
 
 	private int hashcode;
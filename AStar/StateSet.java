@@ -0,0 +1,79 @@
+package AStar;
+
+/**
+ * A set of states of a single puzzle, used for the closed list and other
+ * visited sets. Only packed states are kept: if the states of the puzzle fit
+ * into a single <tt>long</tt> (see <tt>Puzzle.fitsInLong</tt>), their values
+ * from <tt>Puzzle.encodeLong</tt> go into a <tt>LongHashSet</tt>; otherwise
+ * their words from <tt>Puzzle.encode</tt> go into a
+ * <tt>LongArrayHashSet</tt>. A set is meant to be used by a single thread.
+ */
+public class StateSet {
+
+	private Puzzle puzzle;
+	private LongHashSet packed;
+	private LongArrayHashSet wide;
+	private long[] key;		// Reused buffer for packing multi-word states
+
+	/** Constructs an empty set for states of the given puzzle. */
+	public StateSet(Puzzle puzzle) {
+		this.puzzle = puzzle;
+
+		if (puzzle.fitsInLong()) {
+			packed = new LongHashSet();
+		} else {
+			wide = new LongArrayHashSet(puzzle.getEncodedLength());
+			key = new long[puzzle.getEncodedLength()];
+		}
+	}
+
+	/**
+	 * Adds the given state and returns <tt>true</tt> if it was not contained
+	 * before.
+	 */
+	public boolean add(State state) {
+		if (packed != null) {
+			return packed.add(puzzle.encodeLong(state));
+		}
+		puzzle.encode(state, key);
+		return wide.add(key);
+	}
+
+	/** Returns true if and only if the given state is in the set. */
+	public boolean contains(State state) {
+		if (packed != null) {
+			return packed.contains(puzzle.encodeLong(state));
+		}
+		puzzle.encode(state, key);
+		return wide.contains(key);
+	}
+
+	/**
+	 * Returns true if and only if the state that results from moving car
+	 * <tt>v</tt> of the given state to the variable position
+	 * <tt>position</tt> is in the set. The successor state is not
+	 * constructed.
+	 */
+	public boolean containsMove(State state, int v, int position) {
+		if (packed != null) {
+			return packed.contains(puzzle.encodeLong(state, v, position));
+		}
+		puzzle.encode(state, v, position, key);
+		return wide.contains(key);
+	}
+
+	/** Returns the number of states in the set. */
+	public int size() {
+		return packed != null ? packed.size() : wide.size();
+	}
+
+	/** Removes all states from the set. */
+	public void clear() {
+		if (packed != null) {
+			packed.clear();
+		} else {
+			wide.clear();
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package AStar;
+
+/**
+ * The order in which an <tt>OpenList</tt> hands out nodes with equal
+ * <tt>f</tt> values. On puzzles with long solutions, a large part of the open
+ * list shares the <tt>f</tt> value of the solution, so the order matters: the
+ * deeper a node, the closer it usually is to the goal, and a search that
+ * follows the deepest nodes of the last <tt>f</tt> layer first tends to reach
+ * a goal long before that layer is exhausted.
+ * <p>
+ * With a consistent heuristic, all policies yield optimal solutions. An
+ * admissible but inconsistent heuristic (such as <tt>AdvancedHeuristic</tt>)
+ * may reach a state on a longer path first, though; under the other policies
+ * than <tt>FIFO</tt>, this happens on the standard jams, so <tt>AStar</tt>
+ * reopens closed states reached on a shorter path under these policies.
+ */
+public enum TieBreaking {
+
+	/** In the order the nodes were added, as the original sorted list did */
+	FIFO(false, false),
+
+	/** Most recently added first */
+	LIFO(false, true),
+
+	/**
+	 * Greatest depth (i.e., lowest heuristic value) first, and most recently
+	 * added first among nodes of equal depth
+	 */
+	DEEPEST_FIRST(true, true);
+
+	private final boolean byDepth;
+	private final boolean lifo;
+
+	private TieBreaking(boolean byDepth, boolean lifo) {
+		this.byDepth = byDepth;
+		this.lifo = lifo;
+	}
+
+	/** Returns true if deeper nodes are preferred among equal f values. */
+	public boolean prefersDeeper() {
+		return byDepth;
+	}
+
+	/** Returns true if the most recently added node is preferred otherwise. */
+	public boolean isLifo() {
+		return lifo;
+	}
+
+}
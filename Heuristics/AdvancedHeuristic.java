@@ -1,7 +1,5 @@
 package Heuristics;
 
-import java.util.ArrayList;
-
 import AStar.Puzzle;
 import AStar.State;
 
@@ -10,13 +8,18 @@ import AStar.State;
  * heuristic. This class is an implementation of the <tt>Heuristic</tt>
  * interface. After thinking of an original heuristic, you should implement it
  * here, filling in the constructor and the <tt>getValue</tt> method.
+ * <p>
+ * An instance keeps no state between evaluations: the state being evaluated is
+ * passed through the recursion, and the cars visited so far are recorded in a
+ * bit set (one bit per car) that every thread reuses for all of its
+ * evaluations. A single instance may therefore be shared by searches running
+ * in parallel, and evaluating a state allocates nothing.
  */
 public class AdvancedHeuristic implements Heuristic {
 
-	private Puzzle puzzle;
-	private State state;
-	private int numCars;
-	ArrayList<Integer> visited;
+	private final Puzzle puzzle;
+	private final int numCars;
+	private final ThreadLocal<long[]> visited;
 	
 	/**
 	 * This is the required constructor, which must be of the given form.
@@ -24,7 +27,9 @@ public class AdvancedHeuristic implements Heuristic {
 	public AdvancedHeuristic(Puzzle puzzle) {
 		this.puzzle = puzzle;
 		this.numCars = this.puzzle.getNumCars();
-		this.visited = new ArrayList<Integer>();
+		
+		final int words = (this.numCars + 63) >>> 6;
+		this.visited = ThreadLocal.withInitial(() -> new long[words]);
 	}
 
 	/**
@@ -32,65 +37,61 @@ public class AdvancedHeuristic implements Heuristic {
 	 * state.
 	 */
 	public int getValue(State state) {
-		this.state = state;
-		this.visited.clear();
-		
 		if (state.isGoal()) {
 			return 0;
 		}
 		
-		return this.getMinimumRequiredMoves(state);
+		long[] visited = this.visited.get();
+		for (int i = 0; i < visited.length; i++) {
+			visited[i] = 0;
+		}
+		
+		return this.getMinimumRequiredMoves(state, visited);
 	}
 	
-	private int getMinimumRequiredMoves(State state) {
-		visited.add(0);
+	private int getMinimumRequiredMoves(State state, long[] visited) {
+		visit(visited, 0);
 		
 		int value = 1;
 		
-		for (Integer car : getInitialBlockingCars()) {
-			int needsSpaceFront = needsSpace(0, car, 0, true);
-			int needsSpaceBack = needsSpace(0, car, 0, false);
+		for (int car = 1; car < this.numCars; car++) {
+			if (!isInitiallyBlocking(state, car)) {
+				continue;
+			}
+			
+			int needsSpaceFront = needsSpace(state, 0, car, 0, true);
+			int needsSpaceBack = needsSpace(state, 0, car, 0, false);
 			
-			value += getBlockingValue(car, needsSpaceFront, needsSpaceBack);
+			value += getBlockingValue(state, visited, car, needsSpaceFront, needsSpaceBack);
 		}
 		
 		return value;
 	}
 	
-	private ArrayList<Integer> getInitialBlockingCars() {		
-		ArrayList<Integer> blocking = new ArrayList<Integer>();
-		
+	private boolean isInitiallyBlocking(State state, int i) {
 		boolean carOrient = puzzle.getCarOrient(0);
 		int carSize = puzzle.getCarSize(0);
 		int carPos = state.getVariablePosition(0);
 		int carFixed = puzzle.getFixedPosition(0);
 		
-		for (int i = 1; i < this.numCars; i++) {
-			
-			if (carOrient == puzzle.getCarOrient(i)) {
-				continue;
-			}
-			
-			int iFixed = puzzle.getFixedPosition(i);
-			
-			if (iFixed < carPos + carSize) {
-			 	continue;
-			}
-			
-			int iPos = state.getVariablePosition(i);
-			int iPosFront = iPos + puzzle.getCarSize(i);
-			
-			if (carFixed >= iPos && carFixed < iPosFront) {
-				blocking.add(i);
-			}
-			
+		if (carOrient == puzzle.getCarOrient(i)) {
+			return false;
+		}
+		
+		int iFixed = puzzle.getFixedPosition(i);
+		
+		if (iFixed < carPos + carSize) {
+		 	return false;
 		}
 		
-		return blocking;	
+		int iPos = state.getVariablePosition(i);
+		int iPosFront = iPos + puzzle.getCarSize(i);
+		
+		return carFixed >= iPos && carFixed < iPosFront;
 	}
 	
-	private int getBlockingValue(int car, int needsSpaceFront, int needsSpaceBack) {
-		visited.add(car);
+	private int getBlockingValue(State state, long[] visited, int car, int needsSpaceFront, int needsSpaceBack) {
+		visit(visited, car);
 		
 		int value = 1;
 		
@@ -99,31 +100,31 @@ public class AdvancedHeuristic implements Heuristic {
 				continue;
 			}
 			
-			if (visited.contains(next)) {
+			if (isVisited(visited, next)) {
 				continue;
 			}
 			
-			if (!isIntersecting(car, next)) {
+			if (!isIntersecting(state, car, next)) {
 				continue;
 			}
 			
 			int valueFwd = 0, valueBwd = 0;
 			
-			boolean fwdMoveable = canMove(car, next, needsSpaceFront, true);
-			boolean bwdMoveable = canMove(car, next, needsSpaceBack, false);
+			boolean fwdMoveable = canMove(state, car, next, needsSpaceFront, true);
+			boolean bwdMoveable = canMove(state, car, next, needsSpaceBack, false);
 			
-			int needsSpaceFwd = needsSpace(car, next, needsSpaceFront, true);
-			int needsSpaceBwd = needsSpace(car, next, needsSpaceBack, false);
+			int needsSpaceFwd = needsSpace(state, car, next, needsSpaceFront, true);
+			int needsSpaceBwd = needsSpace(state, car, next, needsSpaceBack, false);
 			
 			if (!fwdMoveable) {
-				valueFwd = getBlockingValue(next, needsSpaceFwd, needsSpaceBwd);
-			} else if (isWallBlocking(car, needsSpaceFront, true)) {
+				valueFwd = getBlockingValue(state, visited, next, needsSpaceFwd, needsSpaceBwd);
+			} else if (isWallBlocking(state, car, needsSpaceFront, true)) {
 				valueFwd = Integer.MAX_VALUE;
 			}
 			
 			if (!bwdMoveable) {
-				valueBwd = getBlockingValue(next, needsSpaceFwd, needsSpaceBwd);
-			} else if (isWallBlocking(car, needsSpaceBack, false)) {
+				valueBwd = getBlockingValue(state, visited, next, needsSpaceFwd, needsSpaceBwd);
+			} else if (isWallBlocking(state, car, needsSpaceBack, false)) {
 				valueBwd = Integer.MAX_VALUE;
 			}
 			
@@ -133,20 +134,28 @@ public class AdvancedHeuristic implements Heuristic {
 		return value;
 	}
 	
-	private boolean canMove(int car, int next, int needsSpace, boolean direction) {
-		boolean isBehind = isBehind(car, next);
+	private static void visit(long[] visited, int car) {
+		visited[car >>> 6] |= 1L << car;
+	}
+	
+	private static boolean isVisited(long[] visited, int car) {
+		return (visited[car >>> 6] & (1L << car)) != 0;
+	}
+	
+	private boolean canMove(State state, int car, int next, int needsSpace, boolean direction) {
+		boolean isBehind = isBehind(state, car, next);
 		
 		if (isBehind && direction || !isBehind && !direction) {
 			return true;
 		}
 		
-		int hasSpace = hasSpace(car, next, direction);
+		int hasSpace = hasSpace(state, car, next, direction);
 		return hasSpace >= needsSpace;
 	}
 	
-	private int needsSpace(int car, int next, int needsSpace, boolean direction) {
+	private int needsSpace(State state, int car, int next, int needsSpace, boolean direction) {
 		if (puzzle.getCarOrient(car) == puzzle.getCarOrient(next)) {
-			int hasSpace = hasSpace(car, next, direction);
+			int hasSpace = hasSpace(state, car, next, direction);
 			return needsSpace - hasSpace;
 		}
 		
@@ -162,7 +171,7 @@ public class AdvancedHeuristic implements Heuristic {
 		return Math.abs(carFixed - nextPosFront);
 	}
 	
-	private int hasSpace(int car, int next, boolean direction) {
+	private int hasSpace(State state, int car, int next, boolean direction) {
 		int carPos = state.getVariablePosition(car);
 		int carPosFront = carPos + puzzle.getCarSize(car);
 		int nextFixed = puzzle.getFixedPosition(next);
@@ -186,7 +195,7 @@ public class AdvancedHeuristic implements Heuristic {
 		return Math.abs(carPos - nextPosFront);
 	}
 	
-	private boolean isWallBlocking(int car, int needsSpace, boolean direction) {
+	private boolean isWallBlocking(State state, int car, int needsSpace, boolean direction) {
 		int carPos = state.getVariablePosition(car);
 		int carPosFront = carPos + puzzle.getCarSize(car);
 		
@@ -201,7 +210,12 @@ public class AdvancedHeuristic implements Heuristic {
 		return false;
 	}
 	
-	private boolean isIntersecting(int car, int next) {
+	private boolean isIntersecting(State state, int car, int next) {
+		if (puzzle.hasBitboards() && puzzle.getCarOrient(car) != puzzle.getCarOrient(next)) {
+			long nextMask = puzzle.getCarMask(next, state.getVariablePosition(next));
+			return (puzzle.getLaneMask(car, 0) & nextMask) != 0;
+		}
+		
 		int carFixed = puzzle.getFixedPosition(car);
 		int nextFixed = puzzle.getFixedPosition(next);
 		
@@ -215,7 +229,7 @@ public class AdvancedHeuristic implements Heuristic {
 		return carFixed >= nextPos && carFixed < nextPosFront;
 	}
 	
-	private boolean isBehind(int car, int next) {
+	private boolean isBehind(State state, int car, int next) {
 		int carSize = puzzle.getCarSize(car);
 		int carPos = state.getVariablePosition(car);
 		int nextPos = state.getVariablePosition(next);
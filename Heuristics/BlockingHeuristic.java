@@ -16,6 +16,7 @@ public class BlockingHeuristic implements Heuristic {
 	private int numCars;        // The total number of cars on the jam
 	private int carPosFixed;	// The initial fixed position of our car
 	private int carSize;		// The size of our car
+	private int verticalCars[];	// Indices of all vertically aligned cars except our car
 
 	/**
 	 * This is the required constructor, which must be of the given form.
@@ -25,6 +26,20 @@ public class BlockingHeuristic implements Heuristic {
 		this.numCars = this.puzzle.getNumCars();        // Get the total number of cars
 		this.carPosFixed = puzzle.getFixedPosition(0);	// Get fixed position of our car.
 		this.carSize = this.puzzle.getCarSize(0);       // Get size of our car
+
+		int count = 0;
+		for (int i = 1; i < this.numCars; i++) {
+			if (this.puzzle.getCarOrient(i)) {
+				count++;
+			}
+		}
+
+		this.verticalCars = new int[count];
+		for (int i = 1, j = 0; i < this.numCars; i++) {
+			if (this.puzzle.getCarOrient(i)) {
+				this.verticalCars[j++] = i;
+			}
+		}
 	}
 
 	/**
@@ -43,6 +58,20 @@ public class BlockingHeuristic implements Heuristic {
 		// Calculate the outermost position of our car,
 		int carPosFront = state.getVariablePosition(0) + this.carSize;
 		
+		if (this.puzzle.hasBitboards()) {
+			
+			// Every cell on our lane in front of our car, up to the exit.
+			long lane = this.puzzle.getLaneMask(0, carPosFront);
+			
+			for (int i : this.verticalCars) {
+				if ((this.puzzle.getCarMask(i, state.getVariablePosition(i)) & lane) != 0) {
+					blocking++;
+				}
+			}
+			
+			return blocking;
+		}
+		
 		for (int i = 1; i < this.numCars; i++) {
 			
 			if (!this.puzzle.getCarOrient(i)) {			// Car is horizontally aligned as well,
@@ -0,0 +1,141 @@
+package Heuristics;
+
+import AStar.LongHashSet;
+import AStar.Puzzle;
+import AStar.State;
+
+/**
+ * This heuristic decorates another one with a cache of bounded size, so that a
+ * state regenerated from different parents is only evaluated once, as long as
+ * it has not been evicted in the meantime. States are keyed by their packed
+ * value (see <tt>Puzzle.encodeLong</tt>), or by their hash code and the state
+ * itself for puzzles too large to be packed into a <tt>long</tt>.
+ * <p>
+ * The cache is organized in buckets of four slots. When a bucket is full, a
+ * victim is chosen by the CLOCK algorithm: slots that were hit since the hand
+ * last passed them get a second chance. Counters of hits, misses and evictions
+ * are kept. The cache is not thread-safe; use one instance per search.
+ */
+public class CachingHeuristic implements Heuristic {
+
+	/** The default number of cached values */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final int WAYS = 4;
+	private static final byte OCCUPIED = 1;
+	private static final byte REFERENCED = 2;
+
+	private final Heuristic heuristic;
+	private final Puzzle puzzle;
+	private final boolean packed;
+
+	private final long[] keys;
+	private final int[] values;
+	private final byte[] flags;
+	private final byte[] hands;	// The CLOCK hand of every bucket
+	private final State[] states;	// Only used if states cannot be packed
+	private final int bucketMask;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	/**
+	 * Constructs a cache of the default capacity for the given heuristic.
+	 */
+	public CachingHeuristic(Puzzle puzzle, Heuristic heuristic) {
+		this(puzzle, heuristic, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a cache for the given heuristic holding up to
+	 * <tt>capacity</tt> values, rounded up to a power of two of at least four.
+	 */
+	public CachingHeuristic(Puzzle puzzle, Heuristic heuristic, int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be positive");
+
+		int slots = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+
+		this.heuristic = heuristic;
+		this.puzzle = puzzle;
+		this.packed = puzzle.fitsInLong();
+		this.keys = new long[slots];
+		this.values = new int[slots];
+		this.flags = new byte[slots];
+		this.hands = new byte[slots / WAYS];
+		this.states = packed ? null : new State[slots];
+		this.bucketMask = slots / WAYS - 1;
+	}
+
+	/**
+	 * This method returns the value of the heuristic function at the given
+	 * state.
+	 */
+	public int getValue(State state) {
+		long key = packed ? puzzle.encodeLong(state) : state.hashCode();
+		int bucket = (LongHashSet.mix(key) & bucketMask) * WAYS;
+
+		for (int i = bucket; i < bucket + WAYS; i++) {
+			if ((flags[i] & OCCUPIED) != 0 && keys[i] == key && (packed || states[i].equals(state))) {
+				flags[i] |= REFERENCED;
+				hits++;
+				return values[i];
+			}
+		}
+
+		misses++;
+		int value = heuristic.getValue(state);
+		int slot = victim(bucket);
+
+		keys[slot] = key;
+		values[slot] = value;
+		flags[slot] = OCCUPIED;
+		if (!packed) {
+			states[slot] = state;
+		}
+
+		return value;
+	}
+
+	/** Returns the number of evaluations answered from the cache. */
+	public long getHits() {
+		return hits;
+	}
+
+	/** Returns the number of evaluations passed on to the heuristic. */
+	public long getMisses() {
+		return misses;
+	}
+
+	/** Returns the number of cached values dropped to make room. */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the slot of the given bucket to store a new value in: a free
+	 * one if there is one, and otherwise the first slot the CLOCK hand finds
+	 * unreferenced.
+	 */
+	private int victim(int bucket) {
+		for (int i = bucket; i < bucket + WAYS; i++) {
+			if ((flags[i] & OCCUPIED) == 0) {
+				return i;
+			}
+		}
+
+		int b = bucket / WAYS;
+		while (true) {
+			int slot = bucket + hands[b];
+			hands[b] = (byte) ((hands[b] + 1) % WAYS);
+
+			if ((flags[slot] & REFERENCED) == 0) {
+				evictions++;
+				return slot;
+			}
+			flags[slot] &= ~REFERENCED;
+		}
+	}
+
+}
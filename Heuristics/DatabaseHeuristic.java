@@ -0,0 +1,48 @@
+package Heuristics;
+
+import AStar.DistanceDatabase;
+import AStar.DistanceFile;
+import AStar.Puzzle;
+import AStar.State;
+
+/**
+ * This heuristic looks up the exact distance to the goal in a precomputed,
+ * memory-mapped <tt>DistanceFile</tt>. States that are not in the file, and
+ * states the file marks as unsolvable, are evaluated by a fallback heuristic
+ * instead, so the heuristic stays admissible as long as the fallback is.
+ * Lookups only read the mapped file, so a single instance may be shared by
+ * parallel searches if the fallback allows it.
+ */
+public class DatabaseHeuristic implements Heuristic {
+
+	private DistanceFile file;
+	private Heuristic fallback;
+
+	/**
+	 * Constructs the heuristic for the given puzzle, which must have the
+	 * layout the file was written for; otherwise an
+	 * <tt>IllegalArgumentException</tt> is thrown.
+	 */
+	public DatabaseHeuristic(Puzzle puzzle, DistanceFile file, Heuristic fallback) {
+		if (puzzle.getLayoutSignature() != file.getLayoutSignature())
+			throw new IllegalArgumentException("Distance file does not match the layout of puzzle " + puzzle.getName());
+
+		this.file = file;
+		this.fallback = fallback;
+	}
+
+	/**
+	 * This method returns the value of the heuristic function at the given
+	 * state.
+	 */
+	public int getValue(State state) {
+		int distance = file.getDistance(state);
+
+		if (distance < 0 || distance == DistanceDatabase.UNSOLVABLE) {
+			return fallback.getValue(state);
+		}
+
+		return distance;
+	}
+
+}
@@ -0,0 +1,241 @@
+package Heuristics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import AStar.DistanceDatabase;
+import AStar.Puzzle;
+import AStar.State;
+
+/**
+ * This is a pattern database heuristic. A pattern is the goal car together with
+ * a subset of the other cars; all remaining cars are removed from the board.
+ * Removing cars can only make the puzzle easier, and every move of the real
+ * puzzle corresponds to at most one move of the abstract one, so the exact
+ * distance to the goal in the abstract puzzle is a lower bound for the real
+ * distance. Those distances are computed for every abstract state by a
+ * <tt>DistanceDatabase</tt>, and the values of several patterns are combined
+ * by taking their maximum.
+ * <p>
+ * By default, the cars are ordered by how directly they obstruct the goal car
+ * in the initial state (cars crossing its lane first, then cars obstructing
+ * those, and so on) and split into consecutive patterns, each as large as it
+ * can be while the product of the numbers of positions of its cars (an upper
+ * bound on the number of abstract states) stays within
+ * <tt>MAX_PATTERN_STATES</tt>. This keeps every table small compared to the
+ * puzzle, on 6x6 grids as well as on larger ones, so that there are several
+ * patterns to take the maximum over and building them takes little time and
+ * memory. The tables are built lazily on the first evaluation and are
+ * cached per puzzle and pattern, so repeated searches on the same puzzle, or
+ * several instances of the heuristic, share them. Evaluating a state only
+ * reads the tables, so a single instance may be shared by parallel searches.
+ */
+public class PatternDatabaseHeuristic implements Heuristic {
+
+	/** The bound on the number of abstract states of a default pattern */
+	public static final long MAX_PATTERN_STATES = 1 << 18;
+
+	private static final Map<Puzzle, Map<String, Pattern>> cache =
+			Collections.synchronizedMap(new WeakHashMap<Puzzle, Map<String, Pattern>>());
+
+	private final Puzzle puzzle;
+	private final int[][] carSets;
+	private volatile Pattern[] patterns;
+
+	/**
+	 * This is the required constructor, which uses the default patterns.
+	 */
+	public PatternDatabaseHeuristic(Puzzle puzzle) {
+		this(puzzle, defaultPatterns(puzzle, MAX_PATTERN_STATES));
+	}
+
+	/**
+	 * Constructs the heuristic for the given patterns, each of which lists
+	 * the indices of the cars it keeps besides the goal car.
+	 */
+	public PatternDatabaseHeuristic(Puzzle puzzle, int[][] patterns) {
+		this.puzzle = puzzle;
+		this.carSets = new int[patterns.length][];
+
+		for (int p = 0; p < patterns.length; p++) {
+			int[] cars = new int[patterns[p].length + 1];
+			for (int i = 0; i < patterns[p].length; i++) {
+				if (patterns[p][i] <= 0 || patterns[p][i] >= puzzle.getNumCars())
+					throw new IllegalArgumentException("Invalid car " + patterns[p][i] + " in pattern");
+				cars[i + 1] = patterns[p][i];
+			}
+			this.carSets[p] = cars;
+		}
+	}
+
+	/**
+	 * This method returns the value of the heuristic function at the given
+	 * state.
+	 */
+	public int getValue(State state) {
+		if (state.isGoal()) {
+			return 0;
+		}
+
+		int value = 1;
+
+		for (Pattern pattern : getPatterns()) {
+			int distance = pattern.database.getDistance(pattern.abstraction.encodeProjection(state, pattern.cars));
+
+			if (distance != DistanceDatabase.UNSOLVABLE && distance > value) {
+				value = distance;
+			}
+		}
+
+		return value;
+	}
+
+	private Pattern[] getPatterns() {
+		Pattern[] result = patterns;
+
+		if (result == null) {
+			Map<String, Pattern> tables;
+			synchronized (cache) {
+				tables = cache.get(puzzle);
+				if (tables == null) {
+					tables = new HashMap<String, Pattern>();
+					cache.put(puzzle, tables);
+				}
+			}
+
+			result = new Pattern[carSets.length];
+			synchronized (tables) {
+				for (int p = 0; p < carSets.length; p++) {
+					String key = Arrays.toString(carSets[p]);
+					result[p] = tables.get(key);
+					if (result[p] == null) {
+						result[p] = new Pattern(puzzle, carSets[p]);
+						tables.put(key, result[p]);
+					}
+				}
+			}
+
+			patterns = result;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the default patterns: the cars other than the goal car, ordered
+	 * by a breadth-first search over the "stands in the way of" relation in
+	 * the initial state, starting at the goal car, split into consecutive
+	 * groups whose abstractions have at most <tt>maxStates</tt> states, as
+	 * bounded by the product of the numbers of positions of their cars. A car
+	 * is put into a group of its own if it does not fit with any other.
+	 */
+	static int[][] defaultPatterns(Puzzle puzzle, long maxStates) {
+		int numCars = puzzle.getNumCars();
+		List<Integer> order = new ArrayList<Integer>();
+		boolean[] seen = new boolean[numCars];
+		State init = puzzle.getInitNode().getState();
+
+		seen[0] = true;
+		order.add(0);
+		for (int head = 0; order.size() < numCars; head++) {
+			if (head == order.size()) {
+				// Cars unrelated to all others so far go last, in index order.
+				for (int v = 1; v < numCars; v++) {
+					if (!seen[v]) {
+						seen[v] = true;
+						order.add(v);
+						break;
+					}
+				}
+				continue;
+			}
+
+			int car = order.get(head);
+			for (int v = 1; v < numCars; v++) {
+				if (!seen[v] && mayObstruct(puzzle, init, car, v)) {
+					seen[v] = true;
+					order.add(v);
+				}
+			}
+		}
+
+		int gridSize = puzzle.getGridSize();
+		List<int[]> patterns = new ArrayList<int[]>();
+		int start = 1;
+
+		while (start < numCars) {
+			// The goal car may also take the position past the exit.
+			long states = gridSize - puzzle.getCarSize(0) + 2;
+			int end = start;
+
+			do {
+				states *= gridSize - puzzle.getCarSize(order.get(end)) + 1;
+				end++;
+			} while (end < numCars && states * (gridSize - puzzle.getCarSize(order.get(end)) + 1) <= maxStates);
+
+			int[] pattern = new int[end - start];
+			for (int i = 0; i < pattern.length; i++)
+				pattern[i] = order.get(start + i);
+			patterns.add(pattern);
+			start = end;
+		}
+
+		return patterns.toArray(new int[0][]);
+	}
+
+	/**
+	 * Returns true if car <tt>v</tt> stands in the way of car <tt>car</tt> in
+	 * the initial state: either both move along the same line, or <tt>v</tt>
+	 * currently covers a cell on the line of <tt>car</tt>.
+	 */
+	private static boolean mayObstruct(Puzzle puzzle, State init, int car, int v) {
+		int fixed = puzzle.getFixedPosition(car);
+
+		if (puzzle.getCarOrient(car) == puzzle.getCarOrient(v)) {
+			return fixed == puzzle.getFixedPosition(v);
+		}
+
+		int position = init.getVariablePosition(v);
+		return fixed >= position && fixed < position + puzzle.getCarSize(v);
+	}
+
+	/** An abstraction of a puzzle to a subset of its cars, with its distances. */
+	private static class Pattern {
+		final int[] cars;
+		final Puzzle abstraction;
+		final DistanceDatabase database;
+
+		Pattern(Puzzle puzzle, int[] cars) {
+			int n = cars.length;
+			boolean[] orient = new boolean[n];
+			int[] size = new int[n];
+			int[] x = new int[n];
+			int[] y = new int[n];
+			State init = puzzle.getInitNode().getState();
+
+			for (int i = 0; i < n; i++) {
+				int v = cars[i];
+				orient[i] = puzzle.getCarOrient(v);
+				size[i] = puzzle.getCarSize(v);
+				if (orient[i]) {
+					x[i] = puzzle.getFixedPosition(v);
+					y[i] = init.getVariablePosition(v);
+				} else {
+					x[i] = init.getVariablePosition(v);
+					y[i] = puzzle.getFixedPosition(v);
+				}
+			}
+
+			this.cars = cars;
+			this.abstraction = new Puzzle(puzzle.getName() + Arrays.toString(cars), puzzle.getGridSize(), n, orient,
+					size, x, y);
+			this.database = new DistanceDatabase(abstraction);
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package RushHour;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import AStar.AStar;
+import AStar.Puzzle;
+import AStar.SearchBudget;
+import Heuristics.Heuristic;
+
+/**
+ * This class solves every combination of a set of puzzles and a set of
+ * heuristics, running the independent searches on a fixed pool of threads.
+ * Heuristics are given as factories (typically constructor references such as
+ * <tt>BlockingHeuristic::new</tt>), so every search gets an instance of its
+ * own and heuristics keeping per-evaluation state can be used safely. Every
+ * search may be bounded by a common <tt>SearchBudget</tt>, through which all
+ * of them can also be cancelled.
+ */
+public class BatchSolver {
+
+	/** The outcome of a single search. */
+	public static class Result {
+
+		/** The name of the heuristic used */
+		public final String heuristicName;
+
+		/** The finished search, holding the path, status and statistics */
+		public final AStar search;
+
+		/** The duration of the search in milliseconds */
+		public final long duration;
+
+		Result(String heuristicName, AStar search, long duration) {
+			this.heuristicName = heuristicName;
+			this.search = search;
+			this.duration = duration;
+		}
+	}
+
+	private int threads;
+	private SearchBudget budget;
+
+	/**
+	 * Constructs a solver that runs up to <tt>threads</tt> searches at once.
+	 */
+	public BatchSolver(int threads) {
+		this(threads, new SearchBudget());
+	}
+
+	/**
+	 * Constructs a solver that runs up to <tt>threads</tt> searches at once,
+	 * each of them within the given budget.
+	 */
+	public BatchSolver(int threads, SearchBudget budget) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("Number of threads must be positive");
+		this.threads = threads;
+		this.budget = budget;
+	}
+
+	/**
+	 * Solves every puzzle with every heuristic and returns the results, where
+	 * element <tt>[i][h]</tt> belongs to puzzle <tt>i</tt> and heuristic
+	 * <tt>h</tt>. Returns once all searches have finished.
+	 */
+	public Result[][] solve(Puzzle[] puzzles, List<Function<Puzzle, Heuristic>> heuristics)
+			throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<List<Future<Result>>> futures = new ArrayList<List<Future<Result>>>();
+
+		try {
+			for (Puzzle puzzle : puzzles) {
+				List<Future<Result>> row = new ArrayList<Future<Result>>();
+				for (Function<Puzzle, Heuristic> factory : heuristics)
+					row.add(executor.submit(() -> run(puzzle, factory)));
+				futures.add(row);
+			}
+
+			Result[][] results = new Result[puzzles.length][heuristics.size()];
+			for (int i = 0; i < puzzles.length; i++)
+				for (int h = 0; h < heuristics.size(); h++)
+					results[i][h] = futures.get(i).get(h).get();
+
+			return results;
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Search failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Result run(Puzzle puzzle, Function<Puzzle, Heuristic> factory) {
+		Heuristic heuristic = factory.apply(puzzle);
+
+		long startTime = System.nanoTime();
+		AStar search = new AStar(puzzle, heuristic, budget);
+		long endTime = System.nanoTime();
+
+		return new Result(heuristic.getClass().getName(), search, (endTime - startTime) / 1000000);
+	}
+
+}
@@ -0,0 +1,38 @@
+package RushHour;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import AStar.JamFile;
+
+/**
+ * This class contains a main for converting a text puzzle file, named in
+ * <tt>argv[0]</tt>, into the binary format of <tt>JamFile</tt>, written to the
+ * file named in <tt>argv[1]</tt> (by default, the name of the text file with
+ * its extension replaced by <tt>JamFile.EXTENSION</tt>).
+ */
+public class ConvertJams {
+
+	public static void main(String argv[]) throws IOException {
+		if (argv.length < 1) {
+			System.err.println("Usage: ConvertJams <text file> [<binary file>]");
+			System.exit(1);
+		}
+
+		String source = argv[0];
+		String target;
+		if (argv.length > 1) {
+			target = argv[1];
+		} else {
+			int dot = source.lastIndexOf('.');
+			target = (dot > source.lastIndexOf('/') ? source.substring(0, dot) : source) + JamFile.EXTENSION;
+		}
+
+		long start = System.nanoTime();
+		int count = JamFile.convert(source, Paths.get(target));
+		long duration = (System.nanoTime() - start) / 1000000;
+
+		System.out.println("Converted " + count + " puzzles from " + source + " to " + target + " in " + duration + " ms");
+	}
+
+}
@@ -0,0 +1,125 @@
+package RushHour;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import AStar.DistanceDatabase;
+import AStar.JamFile;
+import AStar.Puzzle;
+import AStar.PuzzleWriter;
+import AStar.State;
+
+/**
+ * This class contains a main for generating the hardest puzzles of a set of
+ * layouts. Every puzzle of the file named in <tt>argv[0]</tt> (a text file,
+ * or a binary one if its name ends in <tt>JamFile.EXTENSION</tt>) stands for
+ * its cluster: the states reachable from its initial state, with the same
+ * cars in the same rows and columns. A <tt>DistanceDatabase</tt> enumerates
+ * the cluster and runs a breadth-first search backwards from all of its goal
+ * states, and the states farthest from any goal are written to the text file
+ * named in <tt>argv[1]</tt>, as puzzles called <tt>name-hardest-k</tt>.
+ * <p>
+ * Clusters are processed in parallel by <tt>argv[2]</tt> threads (by default,
+ * one per available processor), while the output keeps the order of the
+ * input. At most <tt>argv[3]</tt> puzzles are written per cluster (by default,
+ * all at the maximum distance). Clusters reached from several puzzles of the
+ * input are only written once, and puzzles whose states do not fit into a
+ * single <tt>long</tt> are skipped.
+ */
+public class GenerateHardestJams {
+
+	/** The number of clusters queued per thread ahead of the output */
+	private static final int QUEUED_PER_THREAD = 4;
+
+	/** The hardest states of a single cluster. */
+	private static class Cluster {
+		final Puzzle puzzle;
+		final int size;
+		final int distance;
+		final State[] hardest;
+		final long id;			// The smallest packed state, which identifies the cluster
+
+		Cluster(Puzzle puzzle, int limit) {
+			DistanceDatabase database = new DistanceDatabase(puzzle);
+			State[] states = database.getMaxDistance() > 0 ? database.getStatesAtDistance(database.getMaxDistance())
+					: new State[0];
+
+			this.puzzle = puzzle;
+			this.size = database.size();
+			this.distance = database.getMaxDistance();
+			this.hardest = limit > 0 && states.length > limit ? Arrays.copyOf(states, limit) : states;
+			this.id = database.getKey(0);
+		}
+	}
+
+	public static void main(String argv[]) throws IOException, InterruptedException {
+		if (argv.length < 2) {
+			System.err.println("Usage: GenerateHardestJams <puzzle file> <output file> [<threads> [<max per cluster>]]");
+			System.exit(1);
+		}
+
+		int threads = argv.length > 2 ? Integer.parseInt(argv[2]) : Runtime.getRuntime().availableProcessors();
+		int limit = argv.length > 3 ? Integer.parseInt(argv[3]) : 0;
+		if (threads <= 0)
+			throw new IllegalArgumentException("Number of threads must be positive");
+
+		long start = System.nanoTime();
+		int clusters = 0, duplicates = 0, skipped = 0, written = 0;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		ArrayDeque<Future<Cluster>> pending = new ArrayDeque<Future<Cluster>>();
+		Set<String> seen = new HashSet<String>();
+
+		try (Stream<Puzzle> input = argv[0].endsWith(JamFile.EXTENSION)
+				? Arrays.stream(JamFile.load(Paths.get(argv[0])))
+				: Puzzle.streamPuzzlesFromFile(argv[0]);
+				PuzzleWriter writer = new PuzzleWriter(Paths.get(argv[1]))) {
+			Iterator<Puzzle> puzzles = input.iterator();
+
+			while (puzzles.hasNext() || !pending.isEmpty()) {
+				if (puzzles.hasNext() && pending.size() < QUEUED_PER_THREAD * threads) {
+					Puzzle puzzle = puzzles.next();
+					if (puzzle.fitsInLong())
+						pending.add(executor.submit(() -> new Cluster(puzzle, limit)));
+					else
+						skipped++;
+					continue;
+				}
+
+				Cluster cluster = pending.poll().get();
+				clusters++;
+
+				if (!seen.add(cluster.puzzle.getLayoutSignature() + ":" + cluster.id)) {
+					duplicates++;
+					continue;
+				}
+
+				for (int k = 0; k < cluster.hardest.length; k++)
+					writer.write(cluster.puzzle.getName() + "-hardest-" + (k + 1), cluster.hardest[k]);
+				written += cluster.hardest.length;
+
+				System.out.println(cluster.puzzle.getName() + ": " + cluster.size + " states, " + cluster.hardest.length
+						+ " written at distance " + cluster.distance);
+			}
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Cluster analysis failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		long duration = (System.nanoTime() - start) / 1000000;
+		System.out.println(clusters + " clusters (" + duplicates + " duplicates, " + skipped + " puzzles skipped), "
+				+ written + " puzzles written to " + argv[1] + " in " + duration + " ms");
+	}
+
+}
@@ -0,0 +1,67 @@
+package RushHour;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import AStar.AStar;
+import AStar.JamGenerator;
+import AStar.Puzzle;
+import AStar.PuzzleWriter;
+import AStar.SearchBudget;
+import AStar.SearchStatus;
+import Heuristics.BlockingHeuristic;
+
+/**
+ * This class contains a main for generating a corpus of random puzzles on
+ * larger grids, written in the text format to the file named in
+ * <tt>argv[0]</tt>. For every grid size from 7 to 12, it writes
+ * <tt>argv[2]</tt> puzzles (by default 10) named <tt>Rand-size-n</tt>, with
+ * cars covering about <tt>argv[3]</tt> of the cells (by default 0.5), using
+ * the seed given in <tt>argv[1]</tt> (by default 1). Only puzzles that A* with
+ * <tt>BlockingHeuristic</tt> solves within <tt>MAX_EXPANDED_NODES</tt>
+ * expansions are kept, so the corpus can be solved in reasonable time.
+ */
+public class GenerateJams {
+
+	public static final int MIN_GRID_SIZE = 7;
+	public static final int MAX_GRID_SIZE = 12;
+
+	/** Puzzles needing more expansions to solve are skipped */
+	public static final long MAX_EXPANDED_NODES = 100000;
+
+	public static void main(String argv[]) throws IOException {
+		if (argv.length < 1) {
+			System.err.println("Usage: GenerateJams <file> [<seed> [<count per size> [<density>]]]");
+			System.exit(1);
+		}
+
+		long seed = argv.length > 1 ? Long.parseLong(argv[1]) : 1;
+		int count = argv.length > 2 ? Integer.parseInt(argv[2]) : 10;
+		double density = argv.length > 3 ? Double.parseDouble(argv[3]) : 0.5;
+
+		JamGenerator generator = new JamGenerator(seed);
+
+		try (PuzzleWriter writer = new PuzzleWriter(Paths.get(argv[0]))) {
+			for (int gridSize = MIN_GRID_SIZE; gridSize <= MAX_GRID_SIZE; gridSize++) {
+				int written = 0, skipped = 0;
+
+				while (written < count) {
+					Puzzle puzzle = generator.generate("Rand-" + gridSize + "-" + (written + 1), gridSize, density);
+					AStar search = new AStar(puzzle, new BlockingHeuristic(puzzle),
+							new SearchBudget().setMaxExpandedNodes(MAX_EXPANDED_NODES));
+
+					if (search.getStatus() == SearchStatus.SOLVED) {
+						writer.write(puzzle);
+						written++;
+					} else {
+						skipped++;
+					}
+				}
+
+				System.out.println(gridSize + "x" + gridSize + ": " + written + " puzzles written, " + skipped
+						+ " skipped");
+			}
+		}
+	}
+
+}
@@ -1,11 +1,17 @@
 package RushHour;
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.text.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
 
 import AStar.AStar;
 import AStar.BranchingFactor;
+import AStar.JamFile;
 import AStar.Puzzle;
+import AStar.SearchStatistics;
 import Heuristics.AdvancedHeuristic;
 import Heuristics.BlockingHeuristic;
 import Heuristics.Heuristic;
@@ -14,11 +20,16 @@ import Heuristics.ZeroHeuristic;
 /**
  * This class contains only a simple main for testing your algorithm on data
  * with one or more heuristics. The main begins by reading in all of the puzzles
- * described in a file named in <tt>argv[0]</tt>. It then proceeds to run A*
+ * described in a file named in <tt>argv[0]</tt> (a binary puzzle file if its
+ * name ends in <tt>JamFile.EXTENSION</tt>, see <tt>ConvertJams</tt>). It then proceeds to run A*
  * using each heuristic listed below on each of the puzzles (simply comment out
  * any heuristics you don't want to be testing on). In each case, it prints out
  * the solution path that was computed. Finally, it prints out a summary table
- * of the results. You may wish to modify or replace this <tt>main</tt> in any
+ * of the results. The searches are independent of each other and are run in
+ * parallel by a <tt>BatchSolver</tt>, using as many threads as given in
+ * <tt>argv[1]</tt> (by default, one per available processor). If a file is
+ * named in <tt>argv[2]</tt>, the statistics of every search are written to it
+ * in CSV format, one line per search. You may wish to modify or replace this <tt>main</tt> in any
  * way that you wish. (However, other classes that we have provided should not
  * be modified directly.)
  */
@@ -39,51 +50,65 @@ public class RushHour {
     	filename = "jams.txt";
     }
     
-	Puzzle[] puzzles = Puzzle.readPuzzlesFromFile(filename);
+	Puzzle[] puzzles = filename.endsWith(JamFile.EXTENSION)
+			? JamFile.load(Paths.get(filename))
+			: Puzzle.readPuzzlesFromFile(filename);
 
 		boolean showTime = false;
 	
-		String[] heuristic_names = null;
+		// number of searches run at once, given by the optional second argument
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (argv.length > 1) {
+			threads = Integer.parseInt(argv[1]);
+		}
+
+		List<Function<Puzzle, Heuristic>> heuristics = Arrays.asList( // these are the heuristics to be used
+				ZeroHeuristic::new,
+				BlockingHeuristic::new,
+				AdvancedHeuristic::new
+			);
+
 		int num_puzzles = puzzles.length; // puzzles.length;
-		int num_heuristics = 0;
+		int num_heuristics = heuristics.size();
 
-		int[][] num_expanded = null;
-		int[][] soln_depth = null;
-		long[][] duration = null;
+		String[] heuristic_names = new String[num_heuristics];
+		int[][] num_expanded = new int[num_puzzles][num_heuristics];
+		int[][] soln_depth = new int[num_puzzles][num_heuristics];
+		long[][] duration = new long[num_puzzles][num_heuristics];
 
 		// run each heuristic on each puzzle
+		BatchSolver.Result[][] results;
+		try {
+			results = new BatchSolver(threads).solve(puzzles, heuristics);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		if (argv.length > 2) {
+			try (PrintWriter out = new PrintWriter(new FileWriter(argv[2]))) {
+				out.println("puzzle,heuristic," + SearchStatistics.csvHeader());
+				for (int i = 0; i < num_puzzles; i++)
+					for (int h = 0; h < num_heuristics; h++)
+						out.println(csv_quote(puzzles[i].getName()) + "," + csv_quote(results[i][h].heuristicName) + ","
+								+ results[i][h].search.getStatistics().toCsv());
+			}
+		}
+
 		for (int i = 0; i < num_puzzles; i++) {
 			System.out.println("=================================================");
 			System.out.println("puzzle = " + puzzles[i].getName());
 
-			Heuristic[] heuristics = { // these are the heuristics to be used
-					new ZeroHeuristic(puzzles[i]),
-					new BlockingHeuristic(puzzles[i]),
-					new AdvancedHeuristic(puzzles[i])
-				};
-
-			if (i == 0) {
-				num_heuristics = heuristics.length;
-				num_expanded = new int[num_puzzles][num_heuristics];
-				soln_depth = new int[num_puzzles][num_heuristics];
-				duration = new long[num_puzzles][num_heuristics];
-
-				heuristic_names = new String[num_heuristics];
-				for (int h = 0; h < num_heuristics; h++)
-					heuristic_names[h] = heuristics[h].getClass().getName();
-			}
-
 			for (int h = 0; h < num_heuristics; h++) {
+				BatchSolver.Result result = results[i][h];
+				heuristic_names[h] = result.heuristicName;
+
 				System.out.println();
 				System.out.println("------------------------------------");
 				System.out.println();
 				System.out.println("heuristic = " + heuristic_names[h]);
 
-				puzzles[i].resetSearchCount();
-				
-				long startTime = System.currentTimeMillis();
-				AStar search = new AStar(puzzles[i], heuristics[h]);
-				long endTime   = System.currentTimeMillis();
+				AStar search = result.search;
 
 				if (search.path == null) {
 					System.out.println("NO SOLUTION FOUND.");
@@ -95,9 +120,9 @@ public class RushHour {
 						System.out.println();
 					}
 
-					num_expanded[i][h] = puzzles[i].getSearchCount();
+					num_expanded[i][h] = search.getSearchCount();
 					soln_depth[i][h] = search.path.length - 1;
-					duration[i][h] = endTime - startTime;
+					duration[i][h] = result.duration;
 
 					System.out.println("nodes expanded: " + num_expanded[i][h] + ", soln depth: " + soln_depth[i][h] + ", duration: " + duration[i][h]);
 
@@ -169,4 +194,14 @@ public class RushHour {
 		return s.substring(0, n);
 	}
 
+	/**
+	 * Returns <tt>s</tt> as a CSV field: enclosed in double quotes, with
+	 * inner quotes doubled, if it contains a comma, a quote or a line break.
+	 */
+	private static String csv_quote(String s) {
+		if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0)
+			return s;
+		return "\"" + s.replace("\"", "\"\"") + "\"";
+	}
+
 }
@@ -0,0 +1,57 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import AStar.Puzzle;
+import Heuristics.Heuristic;
+
+/**
+ * Benchmarks of <tt>Heuristic.getValue</tt>, evaluated on every state
+ * reachable in the chosen puzzle.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HeuristicBenchmark {
+
+	@Param({ "ZeroHeuristic", "BlockingHeuristic", "AdvancedHeuristic" })
+	public String heuristicName;
+
+	@Param({ "Jam-1", "Jam-14", "Jam-40" })
+	public String jam;
+
+	private AStar.State[] states;
+	private Heuristic heuristic;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Puzzle puzzle = Jams.read(jam);
+		states = Jams.reachableStates(puzzle);
+		heuristic = Jams.heuristic(heuristicName, puzzle);
+	}
+
+	@Benchmark
+	public int getValue() {
+		int sum = 0;
+		for (AStar.State state : states)
+			sum += heuristic.getValue(state);
+		return sum;
+	}
+
+}
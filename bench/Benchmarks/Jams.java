@@ -0,0 +1,109 @@
+package Benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import AStar.AStar;
+import AStar.JamGenerator;
+import AStar.Puzzle;
+import AStar.SearchBudget;
+import AStar.SearchStatus;
+import AStar.State;
+import Heuristics.AdvancedHeuristic;
+import Heuristics.BlockingHeuristic;
+import Heuristics.Heuristic;
+import Heuristics.ZeroHeuristic;
+
+/**
+ * Shared fixtures for the benchmarks. The puzzles are read from the file
+ * named by the system property <tt>rushhour.jams</tt> (by default
+ * <tt>jams.txt</tt> in the working directory).
+ */
+final class Jams {
+
+	private Jams() {
+	}
+
+	/** Reads all puzzles of the benchmark file. */
+	static Puzzle[] readAll() throws IOException {
+		return Puzzle.readPuzzlesFromFile(System.getProperty("rushhour.jams", "jams.txt"));
+	}
+
+	/**
+	 * Returns the puzzle called <tt>name</tt>, or throws an
+	 * <tt>IllegalArgumentException</tt> if there is none.
+	 */
+	static Puzzle read(String name) throws IOException {
+		for (Puzzle puzzle : readAll())
+			if (puzzle.getName().equals(name))
+				return puzzle;
+		throw new IllegalArgumentException("No puzzle named " + name);
+	}
+
+	/**
+	 * Generates <tt>count</tt> random puzzles of the given grid size and car
+	 * density, skipping those that A* with <tt>BlockingHeuristic</tt> does not
+	 * solve within <tt>maxExpandedNodes</tt> expansions. The same arguments
+	 * always yield the same puzzles.
+	 */
+	static Puzzle[] generate(int gridSize, double density, int count, long seed, long maxExpandedNodes) {
+		JamGenerator generator = new JamGenerator(seed);
+		Puzzle[] puzzles = new Puzzle[count];
+
+		for (int i = 0; i < count;) {
+			Puzzle puzzle = generator.generate("Rand-" + gridSize + "-" + (i + 1), gridSize, density);
+			AStar search = new AStar(puzzle, new BlockingHeuristic(puzzle),
+					new SearchBudget().setMaxExpandedNodes(maxExpandedNodes));
+			if (search.getStatus() == SearchStatus.SOLVED)
+				puzzles[i++] = puzzle;
+		}
+
+		return puzzles;
+	}
+
+	/**
+	 * Returns every state reachable from the initial state of the puzzle, in
+	 * breadth-first order.
+	 */
+	static State[] reachableStates(Puzzle puzzle) {
+		State init = puzzle.getInitNode().getState();
+		List<State> states = new ArrayList<State>();
+		Set<State> seen = new HashSet<State>();
+		ArrayDeque<State> queue = new ArrayDeque<State>();
+
+		seen.add(init);
+		queue.add(init);
+		while (!queue.isEmpty()) {
+			State state = queue.poll();
+			states.add(state);
+			for (State successor : state.expand())
+				if (seen.add(successor))
+					queue.add(successor);
+		}
+
+		return states.toArray(new State[0]);
+	}
+
+	/**
+	 * Constructs the heuristic with the given simple class name
+	 * (<tt>ZeroHeuristic</tt>, <tt>BlockingHeuristic</tt> or
+	 * <tt>AdvancedHeuristic</tt>) for the given puzzle.
+	 */
+	static Heuristic heuristic(String name, Puzzle puzzle) {
+		switch (name) {
+		case "ZeroHeuristic":
+			return new ZeroHeuristic(puzzle);
+		case "BlockingHeuristic":
+			return new BlockingHeuristic(puzzle);
+		case "AdvancedHeuristic":
+			return new AdvancedHeuristic(puzzle);
+		default:
+			throw new IllegalArgumentException("Unknown heuristic " + name);
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import AStar.AStar;
+import AStar.HDAStar;
+import AStar.IDAStar;
+import AStar.Puzzle;
+import AStar.SearchStatistics;
+
+/**
+ * Benchmarks of complete searches on random puzzles of growing grid size (see
+ * <tt>JamGenerator</tt>), for several search engines and heuristics. Each trial
+ * solves the same seeded set of puzzles per grid size. Before the
+ * measurement, it prints the number of nodes generated (and, for A*, the
+ * number expanded) and the largest number of states any one search held at
+ * once, which is what the memory use of a search grows with: for A*, the
+ * peak sizes of the open and closed lists; for IDA*, the deepest path plus the
+ * slots of its transposition table; for HDA*, the best nodes kept by all
+ * workers, which include their open nodes. Run with <tt>-prof gc</tt> to
+ * also get the bytes allocated per search.
+ * <p>
+ * <tt>ZeroHeuristic</tt> is left out: blind search already takes seconds on
+ * some 9x9 puzzles, and the breadth-first engines (<tt>ParallelBFS</tt>,
+ * <tt>ExternalBFS</tt>) cover that case.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScalingBenchmark {
+
+	/** The number of puzzles per grid size */
+	private static final int COUNT = 5;
+	private static final double DENSITY = 0.5;
+	private static final long SEED = 1;
+	private static final long MAX_EXPANDED_NODES = 10000;
+
+	@Param({ "6", "7", "8", "9", "10", "11", "12" })
+	public int gridSize;
+
+	@Param({ "AStar", "IDAStar", "HDAStar" })
+	public String engine;
+
+	@Param({ "BlockingHeuristic", "AdvancedHeuristic" })
+	public String heuristicName;
+
+	private Puzzle[] puzzles;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		puzzles = Jams.generate(gridSize, DENSITY, COUNT, SEED, MAX_EXPANDED_NODES);
+
+		long generated = 0, expanded = 0, held = 0;
+		for (Puzzle puzzle : puzzles) {
+			switch (engine) {
+			case "AStar":
+				SearchStatistics statistics = new AStar(puzzle, Jams.heuristic(heuristicName, puzzle))
+						.getStatistics();
+				generated += statistics.getNodesGenerated();
+				expanded += statistics.getNodesExpanded();
+				held = Math.max(held, statistics.getPeakOpenSize() + statistics.getPeakClosedSize());
+				break;
+			case "IDAStar":
+				IDAStar idaStar = new IDAStar(puzzle, Jams.heuristic(heuristicName, puzzle));
+				generated += idaStar.getSearchCount();
+				held = Math.max(held, idaStar.getPeakPathLength() + idaStar.getTableSize());
+				break;
+			default:
+				HDAStar hdaStar = hdaStar(puzzle);
+				generated += hdaStar.getSearchCount();
+				held = Math.max(held, hdaStar.getStatesHeld());
+			}
+		}
+
+		System.out.printf("%n%dx%d: nodes generated: %d", gridSize, gridSize, generated);
+		if (engine.equals("AStar"))
+			System.out.printf(", expanded: %d", expanded);
+		System.out.printf(", peak states held: %d%n", held);
+	}
+
+	@Benchmark
+	public int solve() {
+		int depth = 0;
+		for (Puzzle puzzle : puzzles) {
+			switch (engine) {
+			case "AStar":
+				depth += new AStar(puzzle, Jams.heuristic(heuristicName, puzzle)).path.length;
+				break;
+			case "IDAStar":
+				depth += new IDAStar(puzzle, Jams.heuristic(heuristicName, puzzle)).path.length;
+				break;
+			default:
+				depth += hdaStar(puzzle).path.length;
+			}
+		}
+		return depth;
+	}
+
+	private HDAStar hdaStar(Puzzle puzzle) {
+		return new HDAStar(puzzle, p -> Jams.heuristic(heuristicName, p), Runtime.getRuntime().availableProcessors());
+	}
+
+}
@@ -0,0 +1,61 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import AStar.AStar;
+import AStar.Puzzle;
+import Heuristics.Heuristic;
+
+/**
+ * Benchmarks of complete A* searches. The <tt>jam</tt> parameter names a
+ * single puzzle, or is <tt>all</tt> to solve every puzzle of the file in one
+ * invocation.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SolveBenchmark {
+
+	@Param({ "ZeroHeuristic", "BlockingHeuristic", "AdvancedHeuristic" })
+	public String heuristicName;
+
+	@Param({ "Jam-1", "Jam-14", "Jam-40", "all" })
+	public String jam;
+
+	private Puzzle[] puzzles;
+	private Heuristic[] heuristics;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		puzzles = jam.equals("all") ? Jams.readAll() : new Puzzle[] { Jams.read(jam) };
+
+		heuristics = new Heuristic[puzzles.length];
+		for (int i = 0; i < puzzles.length; i++)
+			heuristics[i] = Jams.heuristic(heuristicName, puzzles[i]);
+	}
+
+	@Benchmark
+	public int solve() {
+		int depth = 0;
+		for (int i = 0; i < puzzles.length; i++)
+			depth += new AStar(puzzles[i], heuristics[i]).path.length;
+		return depth;
+	}
+
+}
@@ -0,0 +1,85 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import AStar.MoveBuffer;
+import AStar.Puzzle;
+
+/**
+ * Benchmarks of the per-state operations on the hot path of every search:
+ * successor generation, hashing and equality. Every invocation runs over all
+ * states reachable in the chosen puzzle.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateBenchmark {
+
+	@Param({ "Jam-1", "Jam-14", "Jam-40" })
+	public String jam;
+
+	private AStar.State[] states;
+	private AStar.State[] copies;
+	private MoveBuffer moves;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Puzzle puzzle = Jams.read(jam);
+		states = Jams.reachableStates(puzzle);
+		moves = new MoveBuffer();
+
+		// Equal but distinct objects, so that equals cannot take the identity shortcut
+		copies = new AStar.State[states.length];
+		for (int i = 0; i < states.length; i++)
+			copies[i] = puzzle.decodeLong(puzzle.encodeLong(states[i]));
+	}
+
+	@Benchmark
+	public int expandIntoBuffer() {
+		int generated = 0;
+		for (AStar.State state : states)
+			generated += state.expand(moves);
+		return generated;
+	}
+
+	@Benchmark
+	public void expandToArray(Blackhole blackhole) {
+		for (AStar.State state : states)
+			blackhole.consume(state.expand());
+	}
+
+	@Benchmark
+	public int hashCodes() {
+		int hash = 0;
+		for (AStar.State state : states)
+			hash += state.hashCode();
+		return hash;
+	}
+
+	@Benchmark
+	public int equalStates() {
+		int equal = 0;
+		for (int i = 0; i < states.length; i++)
+			if (states[i].equals(copies[i]))
+				equal++;
+		return equal;
+	}
+
+}
@@ -0,0 +1,87 @@
+package Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import AStar.AStar;
+import AStar.BucketOpenList;
+import AStar.Puzzle;
+import AStar.TieBreaking;
+import Heuristics.Heuristic;
+
+/**
+ * Benchmarks of complete A* searches under each tie-breaking policy. Before
+ * the measurement, every trial checks that its solutions are as long as under
+ * FIFO order, then prints the number of nodes its searches expand and the
+ * expansions saved compared to FIFO order, so the output shows both the node
+ * counts and the time they translate into.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TieBreakingBenchmark {
+
+	@Param({ "FIFO", "LIFO", "DEEPEST_FIRST" })
+	public String tieBreaking;
+
+	@Param({ "BlockingHeuristic", "AdvancedHeuristic" })
+	public String heuristicName;
+
+	@Param({ "Jam-39", "Jam-40", "all" })
+	public String jam;
+
+	private TieBreaking policy;
+	private Puzzle[] puzzles;
+	private Heuristic[] heuristics;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		policy = TieBreaking.valueOf(tieBreaking);
+		puzzles = jam.equals("all") ? Jams.readAll() : new Puzzle[] { Jams.read(jam) };
+
+		heuristics = new Heuristic[puzzles.length];
+		for (int i = 0; i < puzzles.length; i++)
+			heuristics[i] = Jams.heuristic(heuristicName, puzzles[i]);
+
+		long fifo = 0, expanded = 0;
+		for (int i = 0; i < puzzles.length; i++) {
+			AStar reference = new AStar(puzzles[i], heuristics[i], new BucketOpenList(TieBreaking.FIFO));
+			AStar search = new AStar(puzzles[i], heuristics[i], new BucketOpenList(policy));
+
+			// Savings only count if the solutions are as short as under FIFO.
+			if (search.path.length != reference.path.length)
+				throw new IllegalStateException(puzzles[i].getName() + " is solved in " + (search.path.length - 1)
+						+ " moves under " + policy + ", but in " + (reference.path.length - 1) + " under FIFO");
+
+			fifo += reference.getStatistics().getNodesExpanded();
+			expanded += search.getStatistics().getNodesExpanded();
+		}
+
+		System.out.printf("%nnodes expanded: %d, saved compared to FIFO: %d (%.1f%%)%n", expanded, fifo - expanded,
+				100.0 * (fifo - expanded) / fifo);
+	}
+
+	@Benchmark
+	public int solve() {
+		int depth = 0;
+		for (int i = 0; i < puzzles.length; i++)
+			depth += new AStar(puzzles[i], heuristics[i], new BucketOpenList(policy)).path.length;
+		return depth;
+	}
+
+}